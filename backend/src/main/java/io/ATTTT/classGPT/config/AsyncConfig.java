@@ -0,0 +1,105 @@
+package io.ATTTT.classGPT.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bounded executor per kind of background work, so a backlog in one
+ * (say, File Search indexing) cannot starve the others. Sizes are read from
+ * {@code classgpt.executors.<name>.threads} and {@code .queue-capacity}.
+ * <ul>
+ *   <li>ingestion: reading and text extraction of uploads; CPU-bound, platform
+ *       threads, and callers run the task themselves when it is full</li>
+ *   <li>indexing: File Search uploads; rejects when full, callers defer the resource</li>
+ *   <li>llm: Gemini calls off the request thread; rejects when full (HTTP 503)</li>
+ *   <li>notifications: best-effort event listeners; drops the oldest task when full</li>
+ * </ul>
+ * Work that mostly waits on the network runs on virtual threads; the pool
+ * size is then a concurrency limit rather than a thread budget. Each executor
+ * reports executor.* metrics tagged with its name, plus executor.rejected.
+ * <p>
+ * MVC async and un-named {@code @Async} work stay on Boot's
+ * applicationTaskExecutor, which is created despite these beans
+ * ({@code spring.task.execution.mode=force}) and capped by
+ * {@code spring.task.execution.simple.concurrency-limit}.
+ */
+@Configuration
+public class AsyncConfig {
+
+    private final Environment env;
+    private final MeterRegistry meterRegistry;
+
+    public AsyncConfig(Environment env, MeterRegistry meterRegistry) {
+        this.env = env;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor ingestionExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return executor("ingestion", Math.max(2, cores), 32,
+                Thread.ofPlatform().name("ingestion-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor indexingExecutor() {
+        return executor("indexing", 64, 1000,
+                Thread.ofVirtual().name("indexing-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor llmExecutor() {
+        return executor("llm", 256, 256,
+                Thread.ofVirtual().name("llm-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor notificationExecutor() {
+        return executor("notifications", 8, 500,
+                Thread.ofVirtual().name("notifications-", 0).factory(),
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    private ThreadPoolExecutor executor(String name,
+                                        int defaultThreads,
+                                        int defaultQueueCapacity,
+                                        ThreadFactory threadFactory,
+                                        RejectedExecutionHandler rejectionPolicy) {
+        String prefix = "classgpt.executors." + name + ".";
+        int threads = env.getProperty(prefix + "threads", Integer.class, defaultThreads);
+        int queueCapacity = env.getProperty(prefix + "queue-capacity", Integer.class, defaultQueueCapacity);
+
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks rejected because the executor and its queue were full")
+                .tag("name", name)
+                .register(meterRegistry);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                (task, pool) -> {
+                    rejected.increment();
+                    rejectionPolicy.rejectedExecution(task, pool);
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,35 @@
+package io.ATTTT.classGPT.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-entity-manager-in-view for every endpoint except those that wait on
+ * Gemini: the LLM chat ones and a post's AI reply. The entity manager keeps
+ * its JDBC connection until the request ends, so with it such a request
+ * would hold a pooled connection for the whole Gemini call, and the pool
+ * rather than the thread count would cap concurrent AI requests. Those
+ * handlers only touch eagerly loaded associations outside their
+ * transactions. Replaces Spring Boot's interceptor, which is turned
+ * off with {@code spring.jpa.open-in-view=false}.
+ */
+@Configuration
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public OpenEntityManagerInViewConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor)
+                .excludePathPatterns("/api/llm/**", "/api/posts/*/LLMReply");
+    }
+}
@@ -0,0 +1,71 @@
+package io.ATTTT.classGPT.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Logs virtual threads that block while pinned to their carrier, typically
+ * inside a {@code synchronized} block or native frame (PDFBox, the genai
+ * HTTP client, JDBC drivers). Uses the JFR {@code jdk.VirtualThreadPinned}
+ * event, so it costs nothing until a pin longer than the threshold happens.
+ */
+@Component
+@ConditionalOnProperty(name = "classgpt.diagnostics.pinned-threads.enabled", havingValue = "true")
+public class PinnedThreadMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 12;
+
+    private final RecordingStream stream;
+    private final Counter pinnedEvents;
+
+    public PinnedThreadMonitor(MeterRegistry meterRegistry,
+                               @Value("${classgpt.diagnostics.pinned-threads.threshold:20ms}") Duration threshold) {
+        this.pinnedEvents = Counter.builder("classgpt.vthreads.pinned")
+                .description("Virtual threads that blocked while pinned for longer than the threshold")
+                .register(meterRegistry);
+
+        this.stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Watching for virtual threads pinned longer than {}", threshold);
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        log.warn("Virtual thread pinned for {} ms:\n{}", event.getDuration().toMillis(), frames(event.getStackTrace()));
+    }
+
+    private static String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) return "    (no stack trace)";
+        return stackTrace.getFrames().stream()
+                .limit(MAX_FRAMES)
+                .map(PinnedThreadMonitor::describe)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return "    at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    void close() {
+        stream.close();
+    }
+}
@@ -0,0 +1,84 @@
+package io.ATTTT.classGPT.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Tells {@link ReplicaRoutingDataSource} whether the current request may read
+ * from the replica. After a successful write (any non-GET request) the
+ * session is pinned to the primary for {@code window}, which should cover
+ * the replica's usual lag, so a student sees their own post or reply on the
+ * next page load. Without a session (token auth) a short-lived cookie
+ * does the same; it has to be set before the response is committed, so
+ * there any write attempt pins, successful or not.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String LAST_WRITE_ATTRIBUTE = ReadYourWritesFilter.class.getName() + ".lastWrite";
+    static final String LAST_WRITE_COOKIE = "classgpt-last-write";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        boolean safe = SAFE_METHODS.contains(request.getMethod());
+        ReplicaRoutingDataSource.beginRequest(safe, wroteRecently(request));
+        if (!safe && request.getSession(false) == null) {
+            Cookie cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(System.currentTimeMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.endRequest();
+            if (!safe && response.getStatus() < 400) {
+                HttpSession session = request.getSession(false);
+                if (session != null) {
+                    session.setAttribute(LAST_WRITE_ATTRIBUTE, System.currentTimeMillis());
+                }
+            }
+        }
+    }
+
+    private boolean wroteRecently(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            Object lastWrite = session.getAttribute(LAST_WRITE_ATTRIBUTE);
+            return lastWrite instanceof Long at && withinWindow(at);
+        }
+        if (request.getCookies() == null) return false;
+        for (Cookie cookie : request.getCookies()) {
+            if (!LAST_WRITE_COOKIE.equals(cookie.getName())) continue;
+            try {
+                return withinWindow(Long.parseLong(cookie.getValue()));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean withinWindow(long at) {
+        return System.currentTimeMillis() - at < windowMillis;
+    }
+}
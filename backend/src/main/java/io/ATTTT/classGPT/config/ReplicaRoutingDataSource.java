@@ -0,0 +1,52 @@
+package io.ATTTT.classGPT.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Picks the primary or the replica pool for each new connection.
+ * <p>
+ * Only safe (GET/HEAD/OPTIONS) requests ever use the replica: there, read-only
+ * transactions and reads outside a transaction (lazy loading under
+ * open-in-view) go to the replica, and read-write transactions to the
+ * primary. Every other request, and work outside a request, uses the
+ * primary. A session that wrote recently is pinned to the primary so it
+ * sees its own writes; {@link ReadYourWritesFilter} sets both flags per
+ * request.
+ * <p>
+ * The routing decision needs the transaction's read-only flag, which Spring
+ * sets after the transaction manager asks for a connection, so this must sit
+ * behind a {@code LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> readOnlyRequest = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+
+    static void beginRequest(boolean readOnly, boolean pinned) {
+        readOnlyRequest.set(readOnly);
+        pinnedToPrimary.set(pinned);
+    }
+
+    static void endRequest() {
+        readOnlyRequest.remove();
+        pinnedToPrimary.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // A POST/PUT/DELETE, or work outside any request, never reads a replica:
+        // a readOnly transaction there may still be read-then-write logic
+        if (!Boolean.TRUE.equals(readOnlyRequest.get()) || Boolean.TRUE.equals(pinnedToPrimary.get())) {
+            return Target.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    ? Target.REPLICA
+                    : Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+}
@@ -0,0 +1,43 @@
+package io.ATTTT.classGPT.config;
+
+import com.google.genai.errors.ClientException;
+import io.ATTTT.classGPT.util.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Circuit breakers for the Google GenAI clients. Settings are read from
+ * {@code classgpt.resilience.<name>.*}; see application.properties.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreaker geminiCircuitBreaker(Environment env, MeterRegistry registry) {
+        return new CircuitBreaker("gemini", settings(env, "gemini"), ResilienceConfig::isProviderFailure, registry);
+    }
+
+    @Bean
+    public CircuitBreaker fileSearchCircuitBreaker(Environment env, MeterRegistry registry) {
+        return new CircuitBreaker("file-search", settings(env, "file-search"), ResilienceConfig::isProviderFailure, registry);
+    }
+
+    // 4xx responses mean the request was bad, not that the provider is down
+    private static boolean isProviderFailure(Throwable t) {
+        return !(t instanceof ClientException);
+    }
+
+    private static CircuitBreaker.Settings settings(Environment env, String name) {
+        String prefix = "classgpt.resilience." + name + ".";
+        return new CircuitBreaker.Settings(
+                env.getProperty(prefix + "window-size", Integer.class, 20),
+                env.getProperty(prefix + "minimum-calls", Integer.class, 5),
+                env.getProperty(prefix + "failure-rate-threshold", Double.class, 0.5),
+                env.getProperty(prefix + "open-duration", Duration.class, Duration.ofSeconds(30)),
+                env.getProperty(prefix + "half-open-probes", Integer.class, 2));
+    }
+}
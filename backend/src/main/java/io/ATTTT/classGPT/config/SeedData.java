@@ -12,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.List;
@@ -26,7 +27,9 @@ public class SeedData implements CommandLineRunner {
     private final AuthorityRepository authorityRepository;
     private final CourseRepository courseRepo;
 
+    // One transaction so the inserts go out as JDBC batches at commit
     @Override
+    @Transactional
     public void run(String...args) throws Exception{
         List<Post> posts = postService.getAll();
 
@@ -0,0 +1,60 @@
+package io.ATTTT.classGPT.config;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.ATTTT.classGPT.services.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+
+/**
+ * Signing key and JWT codecs for stateless token authentication
+ * ({@code classgpt.auth.mode=token}). Every node must share the same
+ * {@code classgpt.auth.token.secret}, a base64 HMAC key of at least 256 bits.
+ */
+@Configuration
+@ConditionalOnProperty(name = "classgpt.auth.mode", havingValue = "token")
+public class TokenAuthConfig {
+
+    @Bean
+    public SecretKey tokenSigningKey(@Value("${classgpt.auth.token.secret:}") String secret) {
+        byte[] key = secret.isBlank() ? new byte[0] : Base64.getDecoder().decode(secret);
+        if (key.length < 32) {
+            throw new IllegalStateException(
+                    "classgpt.auth.token.secret must be a base64 key of at least 256 bits in token mode");
+        }
+        return new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder(SecretKey tokenSigningKey) {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(tokenSigningKey));
+    }
+
+    // Picked up by the resource server; refresh tokens are rejected here
+    @Bean
+    public JwtDecoder jwtDecoder(SecretKey tokenSigningKey) {
+        return TokenService.accessDecoder(tokenSigningKey);
+    }
+
+    @Bean
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        // Roles are stored as-is (ROLE_ADMIN), not as SCOPE_ authorities
+        JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+        authorities.setAuthoritiesClaimName(TokenService.ROLES_CLAIM);
+        authorities.setAuthorityPrefix("");
+
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authorities);
+        return converter;
+    }
+}
@@ -1,6 +1,8 @@
 package io.ATTTT.classGPT.config;
 
 import io.ATTTT.classGPT.models.Post;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -11,6 +13,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -32,24 +36,40 @@ public class WebSecurityConfig {
     }
 
 
+    /**
+     * {@code classgpt.auth.mode=session} (default) keeps the SecurityContext in
+     * the HTTP session. {@code token} is stateless: requests carry a bearer
+     * token from /api/auth/token (see TokenAuthConfig) and no session is made.
+     */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${classgpt.auth.mode:session}") String authMode,
+                                           ObjectProvider<JwtAuthenticationConverter> jwtAuthenticationConverter)
+            throws Exception {
+        boolean tokenMode = "token".equals(authMode);
+
+        AuthenticationEntryPoint unauthorized = (request, response, authException) -> {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"success\":false,\"message\":\"Unauthorized\"}");
+            response.getWriter().flush();
+        };
+
         http
                 .cors(withDefaults())
                 .csrf(csrf -> csrf
                         .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                         .ignoringRequestMatchers("/api/**", "/h2-console/**")
                 )
-                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
-                .exceptionHandling(ex -> ex.authenticationEntryPoint((request, response, authException) -> {
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.setContentType("application/json");
-                    response.setCharacterEncoding("UTF-8");
-                    response.getWriter().write("{\"success\":false,\"message\":\"Unauthorized\"}");
-                    response.getWriter().flush();
-                }))
+                .sessionManagement(sm -> sm.sessionCreationPolicy(
+                        tokenMode ? SessionCreationPolicy.STATELESS : SessionCreationPolicy.IF_REQUIRED))
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(unauthorized))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/h2-console/**").permitAll()
+                        // Metrics expose course and moderation activity; health stays open for probes
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/auth/register").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
@@ -66,8 +86,14 @@ public class WebSecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/posts/*/replies/*/endorse").authenticated()
                         .requestMatchers(HttpMethod.POST, "/api/posts/*/like").authenticated()
                         .anyRequest().authenticated()
-                )
+                );
 
+        if (tokenMode) {
+            http.oauth2ResourceServer(rs -> rs
+                    .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter.getObject()))
+                    .authenticationEntryPoint(unauthorized));
+        } else {
+            http
                 // login config - returns JSON for API clients
                 .formLogin(form -> form
                         .loginProcessingUrl("/login")
@@ -100,7 +126,10 @@ public class WebSecurityConfig {
                             response.getWriter().flush();
                         })
                         .permitAll()
-                )
+                );
+        }
+
+        http
                 .headers(headers -> headers.frameOptions(frame -> frame.disable()));
                 // No httpBasic - prevents browser popup
                 // OAuth2 can be added later with .oauth2Login() without conflicts
@@ -20,7 +20,7 @@ public class AccountController {
 
     @GetMapping("/me")
     public AccountDto me(Principal principal) {
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         List<String> roles = me.getAuthorities()
@@ -0,0 +1,109 @@
+package io.ATTTT.classGPT.controllers;
+
+import io.ATTTT.classGPT.dto.ArchiveManifest;
+import io.ATTTT.classGPT.dto.ArchivedPost;
+import io.ATTTT.classGPT.dto.ArchivedResource;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.services.AccountService;
+import io.ATTTT.classGPT.services.CourseArchiveService;
+import io.ATTTT.classGPT.services.EnrollmentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Read-only access to archived courses, served from their cold-storage
+ * snapshots, plus the admin action that archives a course.
+ */
+@RestController
+@RequestMapping("/api/archive/courses/{courseId}")
+@RequiredArgsConstructor
+public class ArchiveController {
+
+    private final CourseArchiveService archiveService;
+    private final AccountService accountService;
+    private final EnrollmentService enrollmentService;
+
+    @PostMapping
+    public ArchiveManifest archive(@PathVariable Long courseId, Principal principal) {
+        Account me = currentAccount(principal);
+        if (!me.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        try {
+            return archiveService.archive(courseId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ArchiveManifest manifest(@PathVariable Long courseId, Principal principal) {
+        requireAccess(courseId, principal);
+        return archiveService.manifest(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course is not archived"));
+    }
+
+    @GetMapping("/posts")
+    public List<ArchivedPost> posts(@PathVariable Long courseId, Principal principal) {
+        requireAccess(courseId, principal);
+        return archiveService.posts(courseId);
+    }
+
+    @GetMapping("/posts/{postId}")
+    public ArchivedPost post(@PathVariable Long courseId, @PathVariable Long postId, Principal principal) {
+        requireAccess(courseId, principal);
+        return archiveService.post(courseId, postId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping("/resources")
+    public List<ArchivedResource> resources(@PathVariable Long courseId, Principal principal) {
+        requireAccess(courseId, principal);
+        return archiveService.resources(courseId);
+    }
+
+    @GetMapping("/resources/{resourceId}/download")
+    public ResponseEntity<byte[]> downloadResource(@PathVariable Long courseId,
+                                                   @PathVariable Long resourceId,
+                                                   Principal principal) {
+        requireAccess(courseId, principal);
+        ArchivedResource r = archiveService.resources(courseId).stream()
+                .filter(res -> res.id().equals(resourceId))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        byte[] data = archiveService.resourceData(courseId, resourceId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Resource has no file data"));
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + r.originalFilename() + "\"")
+                .contentType(MediaType.parseMediaType(
+                        r.contentType() != null ? r.contentType() : "application/octet-stream"))
+                .body(data);
+    }
+
+    private void requireAccess(Long courseId, Principal principal) {
+        Account me = currentAccount(principal);
+        if (!enrollmentService.isEnrolled(me.getId(), courseId) && !me.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+    }
+
+    private Account currentAccount(Principal principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        return accountService.findByPrincipal(principal)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+    }
+}
@@ -9,6 +9,9 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/llm")
@@ -52,15 +55,16 @@ public class ChatController {
         String courseName = course.getName();
         String storeName = course.getFileSearchStoreName();
 
-        String answer = geminiService.answerForCourse(
+        // Shares the pending answer with any identical question already in flight
+        return Mono.fromFuture(() -> geminiService.answerForCourseAsync(
                 courseId,
                 courseName,
                 storeName,
                 message,
                 "course " + courseId + " stream"
-        );
-
-
-        return Flux.just(answer);
+        ))
+                .onErrorMap(RejectedExecutionException.class, e -> new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Too many questions in progress, please try again shortly"))
+                .flux();
     }
 }
@@ -2,27 +2,24 @@ package io.ATTTT.classGPT.controllers;
 
 import io.ATTTT.classGPT.dto.FlagChatReplyRequest;
 import io.ATTTT.classGPT.models.Post;
-import io.ATTTT.classGPT.models.Replies;
 import io.ATTTT.classGPT.repositories.PostRepository;
-import io.ATTTT.classGPT.repositories.RepliesRepository;
+import io.ATTTT.classGPT.services.ReplyModerationService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
-
 @RestController
 @RequestMapping("/api/chat")
 public class ChatFlagController {
 
     private final PostRepository postRepository;
-    private final RepliesRepository repliesRepository;
+    private final ReplyModerationService replyModerationService;
 
     public ChatFlagController(PostRepository postRepository,
-                              RepliesRepository repliesRepository) {
+                              ReplyModerationService replyModerationService) {
         this.postRepository = postRepository;
-        this.repliesRepository = repliesRepository;
+        this.replyModerationService = replyModerationService;
     }
 
     /**
@@ -36,30 +33,7 @@ public class ChatFlagController {
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "Post not found"));
 
-        Replies aiReply = new Replies();
-        aiReply.setPost(post);
-        aiReply.setBody(request.aiReplyText());
-        aiReply.setLlmGenerated(true);
-        aiReply.setFromInstructor(false);
-        aiReply.setFlagged(true);
-        aiReply.setParentReplyId(null);
-
-        aiReply.setModifiedAt(LocalDateTime.now());
-
-        repliesRepository.save(aiReply);
-
-        if (request.studentNote() != null && !request.studentNote().isBlank()) {
-            Replies note = new Replies();
-            note.setPost(post);
-            note.setBody(request.studentNote());
-            note.setLlmGenerated(false);
-            note.setFromInstructor(false);
-            note.setFlagged(false);
-            note.setParentReplyId(aiReply.getId());
-
-            note.setModifiedAt(LocalDateTime.now());
-            repliesRepository.save(note);
-        }
+        replyModerationService.flagChatReply(post, request.aiReplyText(), request.studentNote());
 
         return ResponseEntity.ok().build();
     }
@@ -3,6 +3,7 @@ package io.ATTTT.classGPT.controllers;
 import io.ATTTT.classGPT.dto.CourseSummary;
 import io.ATTTT.classGPT.dto.EnrollmentResponse;
 import io.ATTTT.classGPT.dto.EnrollmentSummary;
+import io.ATTTT.classGPT.dto.RosterImportResult;
 import io.ATTTT.classGPT.models.Account;
 import io.ATTTT.classGPT.models.Course;
 import io.ATTTT.classGPT.models.Enrollment;
@@ -10,9 +11,15 @@ import io.ATTTT.classGPT.repositories.CourseRepository;
 import io.ATTTT.classGPT.services.AccountService;
 import io.ATTTT.classGPT.services.EnrollmentService;
 import io.ATTTT.classGPT.repositories.EnrollmentRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.List;
 import java.util.Random;
@@ -50,15 +57,36 @@ public class ClassController {
     public ResponseEntity<EnrollmentSummary> joinByCode(@RequestBody JoinCodeRequest req,
                                                         Principal principal) {
 
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
         Enrollment enrollment = enrollmentService.joinByCode(me, req.getCode());
         return ResponseEntity.ok(toSummary(enrollment));
     }
 
+    /**
+     * Enrolls a roster of students, one email per CSV line, streamed as the
+     * request body. Only the course owner or an admin may import.
+     */
+    @PostMapping(value = "/{courseId}/roster", consumes = {"text/csv", "text/plain"})
+    public RosterImportResult importRoster(@PathVariable Long courseId,
+                                           HttpServletRequest request,
+                                           Principal principal) throws IOException {
+        Account me = accountService.findByPrincipal(principal)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        boolean owner = course.getOwner() != null && course.getOwner().getId().equals(me.getId());
+        if (!owner && !me.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+
+        return enrollmentService.importRoster(courseId,
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+    }
+
     @GetMapping("/mine")
     public List<CourseWithJoinResponse> myCourses(Principal principal) {
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         return enrollmentRepository.findByAccountId(me.getId())
@@ -74,7 +102,7 @@ public class ClassController {
     public ResponseEntity<CourseWithJoinResponse> createCourse(@RequestBody CreateCourseRequest req,
                                                                Principal principal) {
 
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         // Create course
@@ -0,0 +1,82 @@
+package io.ATTTT.classGPT.controllers;
+
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.services.AccountService;
+import io.ATTTT.classGPT.services.CoursePartitionService;
+import io.ATTTT.classGPT.services.CoursePartitionService.CourseSize;
+import io.ATTTT.classGPT.services.CoursePartitionService.PartitionInfo;
+import io.ATTTT.classGPT.services.CourseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Admin endpoints for course partitions: list them, see which shared
+ * courses are largest, and move a course into or out of its own partition.
+ */
+@RestController
+@RequestMapping("/api/admin/partitions")
+@RequiredArgsConstructor
+public class CoursePartitionController {
+
+    private final CoursePartitionService partitionService;
+    private final CourseService courseService;
+    private final AccountService accountService;
+
+    @GetMapping
+    public List<PartitionInfo> list(Principal principal) {
+        requireAdmin(principal);
+        return partitionService.partitions();
+    }
+
+    @GetMapping("/candidates")
+    public List<CourseSize> candidates(@RequestParam(defaultValue = "10") int limit,
+                                       Principal principal) {
+        requireAdmin(principal);
+        return partitionService.largestSharedCourses(Math.min(Math.max(limit, 1), 100));
+    }
+
+    @PostMapping("/courses/{courseId}")
+    public ResponseEntity<Void> isolate(@PathVariable Long courseId, Principal principal) {
+        requireAdmin(principal);
+        courseService.getById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        partitionService.isolate(courseId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/courses/{courseId}")
+    public ResponseEntity<Void> merge(@PathVariable Long courseId, Principal principal) {
+        requireAdmin(principal);
+        partitionService.merge(courseId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/rebalance")
+    public List<Long> rebalance(@RequestParam long minReplies, Principal principal) {
+        requireAdmin(principal);
+        if (minReplies < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minReplies must be positive");
+        }
+        return partitionService.rebalance(minReplies);
+    }
+
+    private void requireAdmin(Principal principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        Account account = accountService.findByPrincipal(principal)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        if (!account.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        if (!partitionService.isSupported()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Course partitioning needs PostgreSQL");
+        }
+    }
+}
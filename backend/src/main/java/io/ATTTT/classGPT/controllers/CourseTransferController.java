@@ -0,0 +1,83 @@
+package io.ATTTT.classGPT.controllers;
+
+import io.ATTTT.classGPT.dto.CourseImportResult;
+import io.ATTTT.classGPT.dto.CreateCourseRequest;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Course;
+import io.ATTTT.classGPT.services.AccountService;
+import io.ATTTT.classGPT.services.CourseService;
+import io.ATTTT.classGPT.services.CourseTransferService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Streams a course out as a zip and reads one back in as a new course.
+ */
+@RestController
+@RequestMapping("/api/courses")
+@RequiredArgsConstructor
+public class CourseTransferController {
+
+    private static final String ZIP = "application/zip";
+
+    private final CourseTransferService transferService;
+    private final CourseService courseService;
+    private final AccountService accountService;
+
+    @GetMapping("/{courseId}/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable Long courseId, Principal principal) {
+        Account me = currentAccount(principal);
+        Course course = courseService.getById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        boolean owner = course.getOwner() != null && course.getOwner().getId().equals(me.getId());
+        if (!owner && !me.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        if (course.isArchived()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Course is archived");
+        }
+
+        StreamingResponseBody body = out -> transferService.exportCourse(courseId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"course-" + courseId + "-export.zip\"")
+                .contentType(MediaType.parseMediaType(ZIP))
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = ZIP)
+    public CourseImportResult importCourse(@RequestParam(required = false) String code,
+                                           @RequestParam(required = false) String name,
+                                           @RequestParam(required = false) String term,
+                                           HttpServletRequest request,
+                                           Principal principal) throws IOException {
+        Account me = currentAccount(principal);
+        if (!me.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        try {
+            return transferService.importCourse(me, request.getInputStream(),
+                    new CreateCourseRequest(code, name, term));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private Account currentAccount(Principal principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        return accountService.findByPrincipal(principal)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+    }
+}
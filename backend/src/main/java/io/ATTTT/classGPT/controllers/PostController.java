@@ -1,5 +1,7 @@
 package io.ATTTT.classGPT.controllers;
 
+import io.ATTTT.classGPT.dto.BulkReplyRequest;
+import io.ATTTT.classGPT.dto.BulkReplyResult;
 import io.ATTTT.classGPT.dto.PostSummary;
 import io.ATTTT.classGPT.dto.LLMActivityDto;
 import io.ATTTT.classGPT.models.Account;
@@ -12,6 +14,9 @@ import io.ATTTT.classGPT.services.GeminiService;
 import io.ATTTT.classGPT.services.PostService;
 import io.ATTTT.classGPT.services.CourseService;
 import io.ATTTT.classGPT.services.PostLikesService;
+import io.ATTTT.classGPT.services.ReplyModerationService;
+import io.ATTTT.classGPT.services.ReplyPregenerationService;
+import io.ATTTT.classGPT.util.CircuitBreaker;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -28,6 +33,7 @@ import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -45,6 +51,10 @@ public class PostController {
     private final EnrollmentService enrollmentService;
     private final CourseService courseService;
     private final PostLikesService postLikesService;
+    private final ReplyPregenerationService replyPregenerationService;
+    private final ReplyModerationService replyModerationService;
+
+    private static final int MAX_BULK_REPLIES = 1000;
 
     // ============================================
     // HELPER METHODS
@@ -53,12 +63,11 @@ public class PostController {
     private PostSummary toPostSummary(Post p, Account currentUser) {
         var course = p.getCourse();
         var author = p.getAccount();
-        int replyCount = (p.getReplies() != null) ? p.getReplies().size() : 0;
-        var replies = p.getReplies() != null
-                ? p.getReplies().stream()
+        var published = p.getPublishedReplies();
+        int replyCount = published.size();
+        var replies = published.stream()
                 .map(this::toReplySummary)
-                .toList()
-                : List.<ReplySummary>of();
+                .toList();
 
         boolean currentUserLiked = currentUser != null &&
                 postLikesService.hasUserLiked(p.getId(), currentUser.getId());
@@ -100,7 +109,7 @@ public class PostController {
                 p.getModifiedAt(),
                 replies.size(),
                 replies,
-                p.getUpVotes(),
+                postLikesService.currentUpVotes(p),
                 currentUserLiked,
                 // Student Answer fields
                 p.getStudentAnswer(),
@@ -148,7 +157,7 @@ public class PostController {
         if (principal == null) {
             return null;
         }
-        return accountService.findByEmail(principal.getName()).orElse(null);
+        return accountService.findByPrincipal(principal).orElse(null);
     }
 
 
@@ -173,7 +182,7 @@ public class PostController {
     @GetMapping("/classes/{courseId}")
     public List<PostSummary> getPostsForCourse(@PathVariable Long courseId,
                                                Principal principal) {
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         if (!enrollmentService.isEnrolled(me.getId(), courseId)) {
@@ -230,8 +239,7 @@ public class PostController {
         reply.setPost(post);
 
         if (principal != null) {
-            String email = principal.getName();
-            Account account = accountService.findByEmail(email)
+            Account account = accountService.findByPrincipal(principal)
                     .orElseThrow(() -> new IllegalArgumentException("Account not found"));
             reply.setAuthor(account);
             reply.setFromInstructor(account.hasRole("ROLE_ADMIN"));
@@ -251,6 +259,9 @@ public class PostController {
         reply.setParentReplyId(req.getParentReplyId());
 
         Replies saved = repliesRepository.save(reply);
+        if (saved.isFromInstructor()) {
+            postService.recordInstructorActivity(post);
+        }
         return ResponseEntity.ok(toReplySummary(saved));
     }
 
@@ -260,8 +271,22 @@ public class PostController {
         Post post = postService.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
+        // A reply drafted when the post was created is returned as-is
+        Optional<Replies> drafted = replyPregenerationService.claimDraft(id);
+        if (drafted.isPresent()) {
+            return ResponseEntity.ok(toReplySummary(drafted.get()));
+        }
+
+        String body;
+        try {
+            body = geminiService.generateReply(post);
+        } catch (CircuitBreaker.OpenException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "AI assistant is temporarily unavailable, please try again shortly");
+        }
+
         Replies reply = new Replies();
-        reply.setBody(geminiService.generateReply(post));
+        reply.setBody(body);
         reply.setPost(post);
         reply.setAuthor(null);
         reply.setFromInstructor(false);
@@ -291,7 +316,7 @@ public class PostController {
 
         Account account = null;
         if (principal != null) {
-            account = accountService.findByEmail(principal.getName()).orElse(null);
+            account = accountService.findByPrincipal(principal).orElse(null);
         }
 
         boolean wasEndorsed = reply.isEndorsed();
@@ -327,7 +352,7 @@ public class PostController {
             @PathVariable Long courseId,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         // Verify instructor has access to this course
@@ -341,7 +366,7 @@ public class PostController {
 
         // Extract only FLAGGED LLM replies
         List<LLMActivityDto> flaggedResponses = posts.stream()
-                .flatMap(post -> post.getReplies().stream()
+                .flatMap(post -> post.getPublishedReplies().stream()
                         .filter(reply -> reply.isLlmGenerated() && reply.isFlagged())
                         .map(reply -> {
                             LLMActivityDto dto = new LLMActivityDto(
@@ -378,7 +403,7 @@ public class PostController {
             @PathVariable Long courseId,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         // Verify instructor has access to this course
@@ -392,7 +417,7 @@ public class PostController {
 
         // Extract all LLM replies
         List<LLMActivityDto> llmActivity = posts.stream()
-                .flatMap(post -> post.getReplies().stream()
+                .flatMap(post -> post.getPublishedReplies().stream()
                         .filter(Replies::isLlmGenerated)
                         .map(reply -> new LLMActivityDto(
                                 reply.getId(),
@@ -428,7 +453,7 @@ public class PostController {
             @RequestBody ReviewRequest request,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         // Verify instructor role
@@ -452,6 +477,62 @@ public class PostController {
         return ResponseEntity.ok().build();
     }
 
+    // ========== BULK MODERATION ==========
+
+    @PutMapping("/replies/bulk/review")
+    public ResponseEntity<BulkReplyResult> bulkReview(@RequestBody BulkReplyRequest request,
+                                                      Principal principal) {
+        Account instructor = requireInstructor(principal);
+        List<Long> ids = bulkIds(request);
+        int updated = replyModerationService.markReviewed(ids, instructor, request.feedback());
+        return ResponseEntity.ok(new BulkReplyResult("review", ids.size(), updated));
+    }
+
+    @PutMapping("/replies/bulk/endorse")
+    public ResponseEntity<BulkReplyResult> bulkEndorse(@RequestBody BulkReplyRequest request,
+                                                       Principal principal) {
+        Account instructor = requireInstructor(principal);
+        List<Long> ids = bulkIds(request);
+        int updated = replyModerationService.endorse(ids, instructor);
+        return ResponseEntity.ok(new BulkReplyResult("endorse", ids.size(), updated));
+    }
+
+    @PutMapping("/replies/bulk/unflag")
+    public ResponseEntity<BulkReplyResult> bulkUnflag(@RequestBody BulkReplyRequest request,
+                                                      Principal principal) {
+        Account instructor = requireInstructor(principal);
+        List<Long> ids = bulkIds(request);
+        int updated = replyModerationService.unflag(ids, instructor);
+        return ResponseEntity.ok(new BulkReplyResult("unflag", ids.size(), updated));
+    }
+
+    private Account requireInstructor(Principal principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        Account account = accountService.findByPrincipal(principal)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        if (!account.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only instructors can moderate responses");
+        }
+        return account;
+    }
+
+    private List<Long> bulkIds(BulkReplyRequest request) {
+        if (request == null || request.replyIds() == null || request.replyIds().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "replyIds is required");
+        }
+        List<Long> ids = request.replyIds().stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (ids.size() > MAX_BULK_REPLIES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BULK_REPLIES + " replies per request");
+        }
+        return ids;
+    }
+
 
     @PutMapping("/{postId}/replies/{replyId}")
     public ResponseEntity<ReplySummary> updateReply(
@@ -460,7 +541,7 @@ public class PostController {
             @RequestBody UpdateReplyRequest request,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         // Verify instructor role
@@ -538,7 +619,7 @@ public class PostController {
             @RequestBody UpdateReplyRequest request,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         if (!account.hasRole("ROLE_ADMIN")) {
@@ -576,7 +657,8 @@ public class PostController {
         }
 
         Replies saved = repliesRepository.save(reply);
-        
+        postService.recordInstructorActivity(saved.getPost());
+
         // Learning via GeminiService RAG:
         // This is now fromInstructor=true, so it will be picked up by
         // findRecentInstructorPosts() and given [INSTRUCTOR ANSWERED] priority
@@ -593,7 +675,7 @@ public class PostController {
                                                   @RequestBody(required = false) FlagRequest request,
                                                   Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         Optional<Replies> replyOpt = repliesRepository.findById(replyId);
@@ -644,7 +726,7 @@ public class PostController {
         List<AIGenerationInfo> aiGenerations = new ArrayList<>();
 
         for (Post post : allPosts) {
-            List<Replies> replies = post.getReplies();
+            List<Replies> replies = post.getPublishedReplies();
             if (replies != null) {
                 stats.totalReplies += replies.size();
 
@@ -690,8 +772,7 @@ public class PostController {
                                                            Principal principal) {
         Account me;
         if (principal != null) {
-            String email = principal.getName();
-            me = accountService.findByEmail(email)
+            me = accountService.findByPrincipal(principal)
                     .orElseThrow(() -> new IllegalArgumentException("Account not found"));
         } else {
             me = accountService.findByEmail("user.user@domain.com")
@@ -704,6 +785,9 @@ public class PostController {
 
         var course = courseService.getById(courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (course.isArchived()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Course is archived");
+        }
 
         Post post = new Post();
         post.setTitle(req.getTitle());
@@ -711,7 +795,16 @@ public class PostController {
         post.setAccount(me);
         post.setCourse(course);
 
-        Post saved = postService.save(post);
+        Post saved;
+        try {
+            saved = postService.save(post);
+        } catch (CourseService.ArchivedException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Course is archived");
+        }
+        if (me.hasRole("ROLE_ADMIN")) {
+            postService.recordInstructorActivity(saved);
+        }
+        replyPregenerationService.onPostCreated(saved, me);
 
         return ResponseEntity.ok(toPostSummary(saved, me));
     }
@@ -725,7 +818,7 @@ public class PostController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         boolean liked = postLikesService.toggleLike(postId, account);
@@ -787,7 +880,7 @@ public class PostController {
             @RequestBody StudentAnswerRequest request,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         Post post = postService.getById(postId)
@@ -822,7 +915,7 @@ public class PostController {
             @PathVariable Long postId,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         // Verify instructor role
@@ -858,7 +951,7 @@ public class PostController {
             @PathVariable Long postId,
             Principal principal) {
 
-        Account account = accountService.findByEmail(principal.getName())
+        Account account = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
         // Verify instructor role
@@ -1,12 +1,16 @@
 package io.ATTTT.classGPT.controllers;
 
+import io.ATTTT.classGPT.dto.BulkUploadResult;
 import io.ATTTT.classGPT.dto.ResourceSummary;
 import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Course;
 import io.ATTTT.classGPT.models.Resource;
 import io.ATTTT.classGPT.repositories.ResourceRepository;
 import io.ATTTT.classGPT.services.AccountService;
+import io.ATTTT.classGPT.services.CourseService;
 import io.ATTTT.classGPT.services.EnrollmentService;
 import io.ATTTT.classGPT.services.FileService;
+import io.ATTTT.classGPT.services.ResourceIngestionPipeline;
 import io.ATTTT.classGPT.services.ResourceService;
 import lombok.Data;
 import org.springframework.http.HttpHeaders;
@@ -31,17 +35,23 @@ public class ResourceController {
     private final EnrollmentService enrollmentService;
     private final FileService fileService;
     private final ResourceRepository resourceRepository;
+    private final ResourceIngestionPipeline ingestionPipeline;
+    private final CourseService courseService;
 
     public ResourceController(ResourceService resourceService,
                               AccountService accountService,
                               EnrollmentService enrollmentService,
                               FileService fileService,
-                              ResourceRepository resourceRepository) {
+                              ResourceRepository resourceRepository,
+                              ResourceIngestionPipeline ingestionPipeline,
+                              CourseService courseService) {
         this.resourceService = resourceService;
         this.accountService = accountService;
         this.enrollmentService = enrollmentService;
         this.fileService = fileService;
         this.resourceRepository = resourceRepository;
+        this.ingestionPipeline = ingestionPipeline;
+        this.courseService = courseService;
     }
 
     private ResourceSummary toSummary(Resource r) {
@@ -58,7 +68,7 @@ public class ResourceController {
     @GetMapping
     public List<ResourceSummary> listResources(@PathVariable Long courseId,
                                                Principal principal) {
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         if (!enrollmentService.isEnrolled(me.getId(), courseId) && !me.hasRole("ROLE_ADMIN")) {
@@ -78,26 +88,70 @@ public class ResourceController {
             @RequestPart(value = "meta", required = false) ResourceUploadMeta meta,
             Principal principal) throws IOException {
 
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         if (!me.hasRole("ROLE_ADMIN")) {
             throw new ResponseStatusException(FORBIDDEN);
         }
 
+        courseService.getById(courseId)
+                .filter(Course::isArchived)
+                .ifPresent(c -> {
+                    throw new ResponseStatusException(CONFLICT, "Course is archived");
+                });
+
         String title = meta != null ? meta.getTitle() : null;
 
-        Resource saved = resourceService.uploadResource(me, courseId, title, file);
+        Resource saved;
+        try {
+            saved = resourceService.uploadResource(me, courseId, title, file);
+        } catch (CourseService.ArchivedException e) {
+            throw new ResponseStatusException(CONFLICT, "Course is archived");
+        }
         return ResponseEntity.status(CREATED).body(toSummary(saved));
     }
 
+    /**
+     * Uploads many files at once (e.g. a term's worth of slides). Files are
+     * stored before this returns; File Search indexing finishes in the background.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<BulkUploadResult>> uploadResources(
+            @PathVariable Long courseId,
+            @RequestPart("files") List<MultipartFile> files,
+            Principal principal) {
+
+        Account me = accountService.findByPrincipal(principal)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+
+        if (!me.hasRole("ROLE_ADMIN")) {
+            throw new ResponseStatusException(FORBIDDEN);
+        }
+
+        Course course = courseService.getById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND));
+        if (course.isArchived()) {
+            throw new ResponseStatusException(CONFLICT, "Course is archived");
+        }
+
+        List<MultipartFile> nonEmpty = files.stream()
+                .filter(f -> !f.isEmpty())
+                .toList();
+        if (nonEmpty.isEmpty()) {
+            throw new ResponseStatusException(BAD_REQUEST, "No files uploaded");
+        }
+
+        return ResponseEntity.status(CREATED).body(ingestionPipeline.ingest(me, course, nonEmpty));
+    }
+
     @GetMapping("/{resourceId}/download")
     public ResponseEntity<byte[]> downloadResource(
             @PathVariable Long courseId,
             @PathVariable Long resourceId,
             Principal principal) {
 
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         if (!enrollmentService.isEnrolled(me.getId(), courseId) && !me.hasRole("ROLE_ADMIN")) {
@@ -111,16 +165,15 @@ public class ResourceController {
             throw new ResponseStatusException(FORBIDDEN);
         }
 
-        if (r.getData() == null) {
-            throw new ResponseStatusException(NOT_FOUND, "Resource has no file data");
-        }
+        byte[] data = resourceService.loadData(resourceId)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Resource has no file data"));
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"" + r.getOriginalFilename() + "\"")
                 .contentType(MediaType.parseMediaType(
                         r.getContentType() != null ? r.getContentType() : "application/octet-stream"))
-                .body(r.getData());
+                .body(data);
     }
 
 
@@ -128,7 +181,7 @@ public class ResourceController {
     public ResponseEntity<Void> deleteResource(@PathVariable Long courseId,
                                                @PathVariable Long resourceId,
                                                Principal principal) {
-        Account me = accountService.findByEmail(principal.getName())
+        Account me = accountService.findByPrincipal(principal)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
 
         if (!me.hasRole("ROLE_ADMIN")) {
@@ -0,0 +1,67 @@
+package io.ATTTT.classGPT.controllers;
+
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.services.AccountService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.springframework.security.web.context.HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+/**
+ * Session login, available unless {@code classgpt.auth.mode=token}. In token
+ * mode the endpoint does not exist (404); clients use /api/auth/token.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "classgpt.auth.mode", havingValue = "session", matchIfMissing = true)
+public class SessionAuthController {
+
+    private final AccountService accountService;
+    private final PasswordEncoder passwordEncoder;
+
+    @PostMapping("/login")
+    public ResponseEntity<Account> login(@RequestBody AuthController.RegisterRequest req, HttpServletRequest request) {
+        String email = req.getEmail();
+
+        Account account = accountService.findByEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
+
+        if (!passwordEncoder.matches(req.getPassword(), account.getPassword())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
+        }
+
+        List<SimpleGrantedAuthority> grantedAuthorities = account.getAuthorities().stream()
+                .map(auth -> new SimpleGrantedAuthority(auth.getName()))
+                .toList();
+
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(
+                        account.getEmail(),
+                        null,
+                        grantedAuthorities
+                );
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authToken);
+        SecurityContextHolder.setContext(context);
+
+        HttpSession session = request.getSession(true);
+        session.setAttribute(SPRING_SECURITY_CONTEXT_KEY, context);
+
+        return ResponseEntity.ok(account);
+    }
+}
@@ -0,0 +1,59 @@
+package io.ATTTT.classGPT.controllers;
+
+import io.ATTTT.classGPT.dto.TokenResponse;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.services.AccountService;
+import io.ATTTT.classGPT.services.TokenService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Token login and refresh, available when {@code classgpt.auth.mode=token}.
+ * Clients send the access token as {@code Authorization: Bearer ...}.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "classgpt.auth.mode", havingValue = "token")
+public class TokenAuthController {
+
+    private final AccountService accountService;
+    private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
+
+    @PostMapping("/token")
+    public TokenResponse token(@RequestBody TokenRequest req) {
+        Account account = accountService.findByEmail(req.getEmail())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
+
+        if (!passwordEncoder.matches(req.getPassword(), account.getPassword())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
+        }
+        return tokenService.issue(account);
+    }
+
+    @PostMapping("/refresh")
+    public TokenResponse refresh(@RequestBody RefreshRequest req) {
+        try {
+            return tokenService.refresh(req.getRefreshToken());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
+    }
+
+    @Data
+    public static class TokenRequest {
+        private String email;
+        private String password;
+    }
+
+    @Data
+    public static class RefreshRequest {
+        private String refreshToken;
+    }
+}
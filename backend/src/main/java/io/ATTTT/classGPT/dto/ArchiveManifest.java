@@ -0,0 +1,14 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+
+public record ArchiveManifest(
+        Long courseId,
+        String code,
+        String name,
+        String term,
+        LocalDateTime archivedAt,
+        int posts,
+        int replies,
+        int resources
+) {}
@@ -0,0 +1,20 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ArchivedPost(
+        Long id,
+        String title,
+        String body,
+        String authorName,
+        boolean instructorPost,
+        LocalDateTime createdAt,
+        LocalDateTime modifiedAt,
+        List<String> tags,
+        int upVotes,
+        boolean endorsed,
+        String studentAnswer,
+        boolean studentAnswerEndorsed,
+        List<ArchivedReply> replies
+) {}
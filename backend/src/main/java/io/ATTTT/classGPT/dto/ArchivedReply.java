@@ -0,0 +1,15 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+
+public record ArchivedReply(
+        Long id,
+        String body,
+        String authorName,
+        boolean fromInstructor,
+        boolean llmGenerated,
+        boolean isInstructorAnswer,
+        boolean endorsed,
+        Long parentReplyId,
+        LocalDateTime createdAt
+) {}
@@ -0,0 +1,12 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+
+public record ArchivedResource(
+        Long id,
+        String title,
+        String originalFilename,
+        String contentType,
+        long sizeBytes,
+        LocalDateTime uploadedAt
+) {}
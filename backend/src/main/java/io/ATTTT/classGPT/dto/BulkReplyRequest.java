@@ -0,0 +1,9 @@
+package io.ATTTT.classGPT.dto;
+
+import java.util.List;
+
+public record BulkReplyRequest(
+        List<Long> replyIds,
+        // Only used by bulk review
+        String feedback
+) {}
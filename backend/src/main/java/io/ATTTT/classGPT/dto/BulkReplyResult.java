@@ -0,0 +1,8 @@
+package io.ATTTT.classGPT.dto;
+
+public record BulkReplyResult(
+        String action,
+        int requested,
+        // Ids that did not match a reply are skipped, so this can be lower than requested
+        int updated
+) {}
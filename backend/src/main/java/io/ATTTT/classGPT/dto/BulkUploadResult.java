@@ -0,0 +1,22 @@
+package io.ATTTT.classGPT.dto;
+
+public record BulkUploadResult(
+        String filename,
+        Long resourceId,
+        Status status,
+        String error
+) {
+    public enum Status {
+        // Stored in the database; File Search indexing continues in the background
+        INDEXING,
+        FAILED
+    }
+
+    public static BulkUploadResult indexing(String filename, Long resourceId) {
+        return new BulkUploadResult(filename, resourceId, Status.INDEXING, null);
+    }
+
+    public static BulkUploadResult failed(String filename, String error) {
+        return new BulkUploadResult(filename, null, Status.FAILED, error);
+    }
+}
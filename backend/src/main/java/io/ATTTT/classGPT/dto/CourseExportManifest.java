@@ -0,0 +1,12 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+
+public record CourseExportManifest(
+        int formatVersion,
+        Long sourceCourseId,
+        String code,
+        String name,
+        String term,
+        LocalDateTime exportedAt
+) {}
@@ -0,0 +1,10 @@
+package io.ATTTT.classGPT.dto;
+
+public record CourseImportResult(
+        Long courseId,
+        String joinCode,
+        int posts,
+        int replies,
+        int likes,
+        int resources
+) {}
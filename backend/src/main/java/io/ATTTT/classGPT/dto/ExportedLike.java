@@ -0,0 +1,9 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+
+public record ExportedLike(
+        Long postId,
+        String accountEmail,
+        LocalDateTime createdAt
+) {}
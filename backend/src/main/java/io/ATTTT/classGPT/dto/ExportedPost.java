@@ -0,0 +1,25 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ExportedPost(
+        Long id,
+        String title,
+        String body,
+        String authorEmail,
+        LocalDateTime createdAt,
+        LocalDateTime modifiedAt,
+        List<String> tags,
+        boolean pinned,
+        int upVotes,
+        boolean endorsed,
+        String endorsedByEmail,
+        LocalDateTime endorsedAt,
+        String studentAnswer,
+        String studentAnswerAuthorEmail,
+        LocalDateTime studentAnswerUpdatedAt,
+        boolean studentAnswerEndorsed,
+        String studentAnswerEndorsedByEmail,
+        LocalDateTime studentAnswerEndorsedAt
+) {}
@@ -0,0 +1,30 @@
+package io.ATTTT.classGPT.dto;
+
+import java.time.LocalDateTime;
+
+public record ExportedReply(
+        Long id,
+        Long postId,
+        Long parentReplyId,
+        String body,
+        String authorEmail,
+        LocalDateTime createdAt,
+        LocalDateTime modifiedAt,
+        boolean fromInstructor,
+        boolean isInstructorAnswer,
+        boolean llmGenerated,
+        boolean endorsed,
+        boolean reviewed,
+        LocalDateTime reviewedAt,
+        String reviewedByEmail,
+        String reviewFeedback,
+        boolean flagged,
+        LocalDateTime flaggedAt,
+        String flaggedByEmail,
+        String flagReason,
+        boolean instructorEdited,
+        boolean replacedByInstructor,
+        LocalDateTime editedAt,
+        String editedByEmail,
+        String originalLlmResponse
+) {}
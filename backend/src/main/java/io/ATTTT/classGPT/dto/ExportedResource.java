@@ -0,0 +1,8 @@
+package io.ATTTT.classGPT.dto;
+
+public record ExportedResource(
+        Long id,
+        String title,
+        String originalFilename,
+        String contentType
+) {}
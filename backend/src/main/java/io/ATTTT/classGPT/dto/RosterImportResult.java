@@ -0,0 +1,9 @@
+package io.ATTTT.classGPT.dto;
+
+import java.util.List;
+
+public record RosterImportResult(
+        int created,
+        int existing,
+        List<String> unknown
+) {}
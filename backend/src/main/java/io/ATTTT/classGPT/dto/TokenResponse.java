@@ -0,0 +1,8 @@
+package io.ATTTT.classGPT.dto;
+
+public record TokenResponse(
+        String accessToken,
+        String refreshToken,
+        String tokenType,
+        long expiresIn
+) {}
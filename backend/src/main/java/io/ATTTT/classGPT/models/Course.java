@@ -1,20 +1,26 @@
 package io.ATTTT.classGPT.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course")
 @Getter
 @Setter
 @NoArgsConstructor
 public class Course {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_seq")
+    @SequenceGenerator(name = "course_seq", sequenceName = "course_seq", allocationSize = 50)
     private Long id;
 
     private String code;
@@ -34,4 +40,12 @@ public class Course {
     private List<Post> posts;
 
     private String fileSearchStoreName;
+
+    // Set once the course's forum and resources have moved to a cold-storage
+    // snapshot (see CourseArchiveService); the course is read-only after that
+    private LocalDateTime archivedAt;
+
+    public boolean isArchived() {
+        return archivedAt != null;
+    }
 }
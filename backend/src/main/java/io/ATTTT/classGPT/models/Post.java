@@ -1,7 +1,10 @@
 package io.ATTTT.classGPT.models;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.ATTTT.classGPT.util.HtmlText;
 import jakarta.persistence.*;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -16,12 +19,11 @@ import java.util.List;
 @Getter
 @Setter
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-@SequenceGenerator(name = "post_seq", sequenceName = "post_seq", allocationSize = 1)
 public class Post{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
-
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "post_seq")
+    @SequenceGenerator(name = "post_seq", sequenceName = "post_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -30,6 +32,10 @@ public class Post{
     @Column(columnDefinition = "TEXT")
     private String body;
 
+    // Plain-text copy of body, refreshed on every write for search and RAG
+    @Column(name = "body_text", columnDefinition = "TEXT")
+    private String bodyText;
+
     private String imageFilePath;
 
     private LocalDateTime createdAt;
@@ -46,6 +52,9 @@ public class Post{
 
     private boolean isPinned;
 
+    // Written only by PostLikeCounters' relative UPDATE, so saving a stale
+    // entity cannot overwrite likes flushed in the meantime
+    @Column(updatable = false)
     private int upVotes;
 
 
@@ -53,10 +62,18 @@ public class Post{
     @JoinColumn(name = "account_id", referencedColumnName = "id", nullable = false)
     private Account account;
 
+    // Includes unclaimed AI drafts; serialized as getPublishedReplies()
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
-    @JsonManagedReference
+    @JsonIgnore
     private List<Replies> replies = new ArrayList<>();
 
+    /** Replies visible in the thread, leaving out unclaimed AI drafts. */
+    @JsonProperty(value = "replies", access = JsonProperty.Access.READ_ONLY)
+    @JsonManagedReference
+    public List<Replies> getPublishedReplies() {
+        return replies == null ? List.of() : replies.stream().filter(Replies::isPublished).toList();
+    }
+
     @Override
     public String toString(){
         return "Post{" +
@@ -70,13 +87,16 @@ public class Post{
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        modifiedAt = LocalDateTime.now();
+        // Kept when set, so imported posts keep their original times
+        if (createdAt == null) createdAt = LocalDateTime.now();
+        if (modifiedAt == null) modifiedAt = createdAt;
+        bodyText = HtmlText.toPlainText(body);
     }
 
     @PreUpdate
     protected void onUpdate() {
         modifiedAt = LocalDateTime.now();
+        bodyText = HtmlText.toPlainText(body);
     }
 
     @ManyToOne(optional = false)
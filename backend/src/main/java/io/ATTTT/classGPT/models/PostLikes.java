@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(
         name = "post_likes",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "account_id"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "account_id", "course_id"})
 )
 @Getter
 @Setter
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class PostLikes {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "post_likes_seq")
+    @SequenceGenerator(name = "post_likes_seq", sequenceName = "post_likes_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -29,10 +30,17 @@ public class PostLikes {
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
+    // Copied from the post; partition key of the post_likes table on PostgreSQL
+    @Column(name = "course_id", nullable = false, updatable = false)
+    private Long courseId;
+
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) createdAt = LocalDateTime.now();
+        if (courseId == null && post != null) {
+            courseId = post.getCourse().getId();
+        }
     }
 }
\ No newline at end of file
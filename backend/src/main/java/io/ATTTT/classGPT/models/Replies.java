@@ -3,6 +3,7 @@ package io.ATTTT.classGPT.models;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.ATTTT.classGPT.util.HtmlText;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -17,12 +18,17 @@ import java.time.LocalDateTime;
 public class Replies {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "replies_seq")
+    @SequenceGenerator(name = "replies_seq", sequenceName = "replies_seq", allocationSize = 50)
     private Long id;
 
     @Column(columnDefinition = "TEXT")
     private String body;
 
+    // Plain-text copy of body, refreshed on every write for search and RAG
+    @Column(name = "body_text", columnDefinition = "TEXT")
+    private String bodyText;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime modifiedAt;
@@ -37,6 +43,11 @@ public class Replies {
     @JsonBackReference
     private Post post;
 
+    // Copied from the post; partition key of the replies table on PostgreSQL
+    @Column(name = "course_id", nullable = false, updatable = false)
+    @JsonIgnore
+    private Long courseId;
+
     @Column(name = "from_instructor")
     private boolean fromInstructor = false;
     
@@ -48,6 +59,11 @@ public class Replies {
     
     @Column(name = "llm_generated")
     private boolean llmGenerated = false;
+
+    // AI reply drafted in the background when the post was created, not yet
+    // handed out by the LLMReply endpoint
+    @Column(name = "pregenerated")
+    private Boolean pregenerated = false;
     
     @Column(name = "endorsed")
     private boolean endorsed = false;
@@ -112,17 +128,30 @@ public class Replies {
     
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        modifiedAt = LocalDateTime.now();
+        // Kept when set, so imported replies keep their original times
+        if (createdAt == null) createdAt = LocalDateTime.now();
+        if (modifiedAt == null) modifiedAt = createdAt;
+        bodyText = HtmlText.toPlainText(body);
+        if (courseId == null && post != null) {
+            courseId = post.getCourse().getId();
+        }
     }
 
     @PreUpdate
     protected void onUpdate() {
         modifiedAt = LocalDateTime.now();
+        bodyText = HtmlText.toPlainText(body);
     }
 
     // ========== HELPER METHODS ==========
-    
+
+    // Unclaimed drafts are not part of the thread until the LLMReply endpoint
+    // hands them out: listings, RAG context and exports all skip them
+    @JsonIgnore
+    public boolean isPublished() {
+        return !Boolean.TRUE.equals(pregenerated);
+    }
+
     public String getFlaggedByName() {
         if (flaggedBy == null) return null;
         return (flaggedBy.getFirstName() + " " + flaggedBy.getLastName()).trim();
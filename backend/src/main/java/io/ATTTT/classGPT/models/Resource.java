@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class Resource {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resource_seq")
+    @SequenceGenerator(name = "resource_seq", sequenceName = "resource_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -33,13 +34,8 @@ public class Resource {
 
     private LocalDateTime uploadedAt;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    private byte[] data;
-
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    private String extractedText;
+    // File bytes live in ResourceBlob and extracted text in ResourceText,
+    // both loaded on demand by resource id.
 
     @Column(name = "indexed_in_file_search")
     private Boolean indexedInFileSearch = false;
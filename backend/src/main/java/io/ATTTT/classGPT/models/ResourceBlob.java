@@ -0,0 +1,29 @@
+package io.ATTTT.classGPT.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Raw file bytes of a {@link Resource}, kept out of the resource row so that
+ * metadata listings never read blob storage. Shares the resource's id.
+ */
+@Entity
+@Table(name = "resource_blob")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ResourceBlob {
+
+    @Id
+    private Long resourceId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "resource_id")
+    private Resource resource;
+
+    @Lob
+    private byte[] data;
+}
@@ -0,0 +1,44 @@
+package io.ATTTT.classGPT.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One deflate-compressed slice of a resource's extracted text. PDFs are cut
+ * on page boundaries so a chunk can be attributed to a page range.
+ */
+@Entity
+@Table(name = "resource_text_chunk")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ResourceTextChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resource_text_chunk_seq")
+    @SequenceGenerator(name = "resource_text_chunk_seq", sequenceName = "resource_text_chunk_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "resource_id", nullable = false)
+    private Resource resource;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    // 1-based, inclusive; null for formats without pages
+    @Column(name = "first_page")
+    private Integer firstPage;
+
+    @Column(name = "last_page")
+    private Integer lastPage;
+
+    @Column(name = "raw_length", nullable = false)
+    private int rawLength;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] compressed;
+}
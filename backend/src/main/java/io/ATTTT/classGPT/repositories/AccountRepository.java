@@ -1,14 +1,32 @@
 package io.ATTTT.classGPT.repositories;
 
 import io.ATTTT.classGPT.models.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
-    List<Account> findByEmailIgnoreCase(String email);
-    boolean existsByEmailIgnoreCase(String email);
+    // LOWER rather than derived IgnoreCase (UPPER) so the lower(email) index applies
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT a FROM Account a WHERE LOWER(a.email) = LOWER(:email)")
+    List<Account> findByEmailIgnoreCase(@Param("email") String email);
 
-    List<Account> findByAuthorities_Name(String name);
+    @Query("SELECT COUNT(a) > 0 FROM Account a WHERE LOWER(a.email) = LOWER(:email)")
+    boolean existsByEmailIgnoreCase(@Param("email") String email);
+
+    // Expects lower-cased emails; used for bulk roster lookups
+    @Query("SELECT a FROM Account a WHERE LOWER(a.email) IN :emails")
+    List<Account> findByLowerEmailIn(@Param("emails") Collection<String> emails);
+
+    // Inner join so the planner can start from the authority_name index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT a FROM Account a JOIN a.authorities au WHERE au.name = :name")
+    List<Account> findByAuthorities_Name(@Param("name") String name);
 }
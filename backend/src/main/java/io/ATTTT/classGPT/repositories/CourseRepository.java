@@ -1,11 +1,55 @@
 package io.ATTTT.classGPT.repositories;
 
 import io.ATTTT.classGPT.models.Course;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Course> findByJoinCode(String joinCode);
     boolean existsByJoinCode(String joinCode);
-}
\ No newline at end of file
+
+    // Held until the caller's transaction ends; used while archiving
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Course c WHERE c.id = :courseId")
+    Optional<Course> findByIdForUpdate(@Param("courseId") Long courseId);
+
+    /**
+     * Share-locks the course row for the caller's transaction and returns its
+     * id unless the course is archived. Waits while an archive holds the row.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c.id FROM Course c WHERE c.id = :courseId AND c.archivedAt IS NULL")
+    Optional<Long> lockIfNotArchived(@Param("courseId") Long courseId);
+
+    // Looked up on every chat question; cached until the course table changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT c.fileSearchStoreName FROM Course c WHERE c.id = :courseId")
+    Optional<String> findFileSearchStoreNameById(@Param("courseId") Long courseId);
+
+    /**
+     * Sets the store name only if no other writer got there first.
+     * Returns 0 when the course already has a store. As a bulk update it
+     * invalidates the course cache region and the cached course queries.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+      UPDATE Course c
+      SET c.fileSearchStoreName = :storeName
+      WHERE c.id = :courseId
+        AND c.fileSearchStoreName IS NULL
+      """)
+    int claimFileSearchStoreName(@Param("courseId") Long courseId,
+                                 @Param("storeName") String storeName);
+}
@@ -2,10 +2,22 @@ package io.ATTTT.classGPT.repositories;
 
 import io.ATTTT.classGPT.models.Enrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     boolean existsByAccountIdAndCourseId(Long accountId, Long courseId);
     List<Enrollment> findByAccountId(Long accountId);
+    Optional<Enrollment> findByAccountIdAndCourseId(Long accountId, Long courseId);
+
+    @Query("""
+            SELECT e.account.id FROM Enrollment e
+            WHERE e.course.id = :courseId AND e.account.id IN :accountIds
+            """)
+    List<Long> findEnrolledAccountIds(@Param("courseId") Long courseId,
+                                      @Param("accountIds") Collection<Long> accountIds);
 }
@@ -1,16 +1,33 @@
 package io.ATTTT.classGPT.repositories;
 
 import io.ATTTT.classGPT.models.PostLikes;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface PostLikesRepository extends JpaRepository<PostLikes, Long>{
     boolean existsByPostIdAndAccountId(Long postId, Long accountId);
 
+    // Needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query("SELECT l FROM PostLikes l JOIN FETCH l.post JOIN FETCH l.account WHERE l.courseId = :courseId ORDER BY l.id")
+    Stream<PostLikes> streamByCourseId(@Param("courseId") Long courseId);
+
     Optional<PostLikes> findByPostIdAndAccountId(Long postId, Long accountId);
 
     long countByPostId(Long postId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PostLikes l WHERE l.post.id = :postId AND l.account.id = :accountId")
+    int deleteByPostIdAndAccountId(@Param("postId") Long postId, @Param("accountId") Long accountId);
 }
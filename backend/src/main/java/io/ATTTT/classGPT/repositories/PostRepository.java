@@ -1,39 +1,82 @@
 package io.ATTTT.classGPT.repositories;
 
 import io.ATTTT.classGPT.models.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
-    List<Post> findByAccount_Id(Long accountId);
+    // Compares the FK column; the derived Account_Id form joins account first
+    @Query("SELECT p FROM Post p WHERE p.account.id = :accountId")
+    List<Post> findByAccount_Id(@Param("accountId") Long accountId);
     Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
     List<Post> findByCourseIdOrderByCreatedAtDesc(Long courseId);
 
+    // Scrolls through the course in fetch-size batches; needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query("SELECT p FROM Post p WHERE p.course.id = :courseId ORDER BY p.id")
+    Stream<Post> streamByCourseId(@Param("courseId") Long courseId);
+
     @Query("""
       SELECT p
       FROM Post p
       WHERE p.course.id = :courseId
         AND (
           LOWER(p.title) LIKE LOWER(CONCAT('%', :q, '%'))
-          OR LOWER(p.body)  LIKE LOWER(CONCAT('%', :q, '%'))
+          OR LOWER(COALESCE(p.bodyText, p.body)) LIKE LOWER(CONCAT('%', :q, '%'))
         )
       ORDER BY p.createdAt DESC
       """)
     List<Post> searchSimilar(@Param("courseId") Long courseId,
                              @Param("q") String q);
 
-    @Query("SELECT DISTINCT p FROM Post p " +
-            "JOIN p.account.authorities a " +
-            "WHERE p.course.id = :courseId " +
-            "AND (a.name = 'ROLE_ADMIN') " +
-            "ORDER BY p.createdAt DESC")
+    /**
+     * Posts written by an instructor or answered by one, newest first.
+     * The page size is pushed down to the database as a LIMIT.
+     */
+    @Query("""
+      SELECT p
+      FROM Post p
+      WHERE p.course.id = :courseId
+        AND (
+          EXISTS (
+            SELECT a.id
+            FROM Account a JOIN a.authorities au
+            WHERE a = p.account AND au.name = 'ROLE_ADMIN'
+          )
+          OR EXISTS (
+            SELECT r.id
+            FROM Replies r
+            WHERE r.post = p AND r.fromInstructor = true
+          )
+        )
+      ORDER BY p.createdAt DESC
+      """)
     List<Post> findRecentInstructorPosts(@Param("courseId") Long courseId, Pageable pageable);
+
+    @Query("SELECT p.course.id FROM Post p WHERE p.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
+
+    @Query("SELECT p.upVotes FROM Post p WHERE p.id = :id")
+    Optional<Integer> findUpVotesById(@Param("id") Long id);
+
+    // Relative update so concurrent flushes never overwrite each other
+    @Transactional
+    @Modifying
+    @Query("UPDATE Post p SET p.upVotes = p.upVotes + :delta WHERE p.id = :id")
+    int addUpVotes(@Param("id") Long id, @Param("delta") long delta);
 }
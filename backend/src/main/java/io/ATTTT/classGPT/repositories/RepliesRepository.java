@@ -1,13 +1,127 @@
 package io.ATTTT.classGPT.repositories;
 
+import io.ATTTT.classGPT.models.Account;
 import io.ATTTT.classGPT.models.Post;
 import io.ATTTT.classGPT.models.Replies;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RepliesRepository extends JpaRepository<Replies, Long> {
     List<Replies> findByPost(Post post);
 
     List<Replies> findByLlmGeneratedTrueAndFlaggedTrueOrderByCreatedAtAsc();
+
+    // Filters on the post_id column directly so idx_replies_post applies
+    @Query("SELECT r FROM Replies r WHERE r.post.id = :postId AND r.pregenerated = true ORDER BY r.id")
+    List<Replies> findPregeneratedByPostId(@Param("postId") Long postId, Limit limit);
+
+    /** How many replies a post has and when the latest change to one was. */
+    interface ReplyStamp {
+        long getCount();
+        LocalDateTime getLastModified();
+    }
+
+    @Query("SELECT COUNT(r) AS count, MAX(r.modifiedAt) AS lastModified FROM Replies r WHERE r.post.id = :postId")
+    ReplyStamp findReplyStampByPostId(@Param("postId") Long postId);
+
+    @Query("SELECT COUNT(r) > 0 FROM Replies r WHERE r.post.id = :postId AND r.llmGenerated = true")
+    boolean existsLlmReplyByPostId(@Param("postId") Long postId);
+
+    // Conditional, so of two concurrent claims of the same draft only one wins
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+      UPDATE Replies r
+      SET r.pregenerated = false,
+          r.modifiedAt = :now
+      WHERE r.id = :id AND r.pregenerated = true
+      """)
+    int claimPregenerated(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Published replies of a course (no unclaimed drafts); needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query("""
+            SELECT r FROM Replies r JOIN FETCH r.post
+            WHERE r.courseId = :courseId AND (r.pregenerated IS NULL OR r.pregenerated = false)
+            ORDER BY r.id
+            """)
+    Stream<Replies> streamPublishedByCourseId(@Param("courseId") Long courseId);
+
+    // Published replies of a course grouped by post, oldest first; needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query("""
+            SELECT r FROM Replies r JOIN FETCH r.post
+            WHERE r.courseId = :courseId AND (r.pregenerated IS NULL OR r.pregenerated = false)
+            ORDER BY r.post.id, r.createdAt NULLS FIRST, r.id
+            """)
+    Stream<Replies> streamPublishedByCourseIdInThreadOrder(@Param("courseId") Long courseId);
+
+    // Bulk moderation. These bypass entity callbacks, so modifiedAt is set explicitly.
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+      UPDATE Replies r
+      SET r.reviewed = true,
+          r.reviewedAt = :now,
+          r.reviewedBy = :reviewer,
+          r.reviewFeedback = COALESCE(:feedback, r.reviewFeedback),
+          r.modifiedAt = :now
+      WHERE r.id IN :ids
+      """)
+    int markReviewed(@Param("ids") Collection<Long> ids,
+                     @Param("reviewer") Account reviewer,
+                     @Param("feedback") String feedback,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+      UPDATE Replies r
+      SET r.endorsed = true,
+          r.modifiedAt = :now
+      WHERE r.id IN :ids
+      """)
+    int markEndorsed(@Param("ids") Collection<Long> ids,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+      UPDATE Replies r
+      SET r.reviewed = true,
+          r.reviewedAt = :now,
+          r.reviewedBy = :reviewer,
+          r.flagged = false,
+          r.flaggedAt = null,
+          r.flaggedBy = null,
+          r.flagReason = null
+      WHERE r.id IN :ids AND r.llmGenerated = true
+      """)
+    int markLlmRepliesReviewedAndUnflagged(@Param("ids") Collection<Long> ids,
+                                           @Param("reviewer") Account reviewer,
+                                           @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+      UPDATE Replies r
+      SET r.flagged = false,
+          r.flaggedAt = null,
+          r.flaggedBy = null,
+          r.flagReason = null,
+          r.modifiedAt = :now
+      WHERE r.id IN :ids
+      """)
+    int clearFlags(@Param("ids") Collection<Long> ids,
+                   @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,15 @@
+package io.ATTTT.classGPT.repositories;
+
+import io.ATTTT.classGPT.models.ResourceBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ResourceBlobRepository extends JpaRepository<ResourceBlob, Long> {
+
+    // Scalar read, so the bytes are never held by the persistence context
+    @Query("SELECT b.data FROM ResourceBlob b WHERE b.resourceId = :resourceId")
+    Optional<byte[]> findDataByResourceId(@Param("resourceId") Long resourceId);
+}
@@ -2,10 +2,20 @@ package io.ATTTT.classGPT.repositories;
 
 import io.ATTTT.classGPT.models.Resource;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ResourceRepository extends JpaRepository<Resource, Long> {
 
     List<Resource> findByCourseIdOrderByUploadedAtDesc(Long courseId);
+
+    @Query("""
+      SELECT COUNT(r)
+      FROM Resource r
+      WHERE r.course.id = :courseId
+        AND (r.indexedInFileSearch IS NULL OR r.indexedInFileSearch = false)
+      """)
+    long countUnindexedByCourseId(@Param("courseId") Long courseId);
 }
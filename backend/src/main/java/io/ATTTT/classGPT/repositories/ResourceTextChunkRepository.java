@@ -0,0 +1,37 @@
+package io.ATTTT.classGPT.repositories;
+
+import io.ATTTT.classGPT.models.ResourceTextChunk;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.stream.Stream;
+
+public interface ResourceTextChunkRepository extends JpaRepository<ResourceTextChunk, Long> {
+
+    /** One chunk's compressed text and the resource it belongs to. */
+    interface ChunkText {
+        Long getResourceId();
+        int getRawLength();
+        byte[] getCompressed();
+    }
+
+    // Scrolled in fetch-size batches so a search can stop early; needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10"))
+    @Query("""
+      SELECT r.id AS resourceId, c.rawLength AS rawLength, c.compressed AS compressed
+      FROM ResourceTextChunk c
+      JOIN c.resource r
+      WHERE r.course.id = :courseId
+      ORDER BY r.uploadedAt DESC, r.id, c.chunkIndex
+      """)
+    Stream<ChunkText> streamByCourseIdInReadingOrder(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("DELETE FROM ResourceTextChunk c WHERE c.resource.id = :resourceId")
+    void deleteByResourceId(@Param("resourceId") Long resourceId);
+}
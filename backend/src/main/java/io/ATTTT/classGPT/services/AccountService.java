@@ -5,9 +5,11 @@ import io.ATTTT.classGPT.models.Authority;
 import io.ATTTT.classGPT.repositories.AccountRepository;
 import io.ATTTT.classGPT.repositories.AuthorityRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Optional;
@@ -57,6 +59,22 @@ public class AccountService {
         return accountRepository.save(account);
     }
 
+    /**
+     * The account behind an authenticated request. Token principals carry
+     * the account id, which is a primary-key lookup served from the
+     * second-level cache; session principals only have the email.
+     */
+    public Optional<Account> findByPrincipal(Principal principal) {
+        if (principal == null) {
+            return Optional.empty();
+        }
+        if (principal instanceof JwtAuthenticationToken token
+                && token.getToken().getClaim(TokenService.ACCOUNT_ID_CLAIM) instanceof Number accountId) {
+            return accountRepository.findById(accountId.longValue());
+        }
+        return findByEmail(principal.getName());
+    }
+
     public Optional<Account> findByEmail(String email) {
 
         List<Account> accounts = accountRepository.findByEmailIgnoreCase(email);
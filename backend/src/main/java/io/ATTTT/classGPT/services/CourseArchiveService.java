@@ -0,0 +1,463 @@
+package io.ATTTT.classGPT.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ATTTT.classGPT.dto.ArchiveManifest;
+import io.ATTTT.classGPT.dto.ArchivedPost;
+import io.ATTTT.classGPT.dto.ArchivedReply;
+import io.ATTTT.classGPT.dto.ArchivedResource;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Course;
+import io.ATTTT.classGPT.models.Post;
+import io.ATTTT.classGPT.models.Replies;
+import io.ATTTT.classGPT.models.Resource;
+import io.ATTTT.classGPT.repositories.CourseRepository;
+import io.ATTTT.classGPT.repositories.PostRepository;
+import io.ATTTT.classGPT.repositories.RepliesRepository;
+import io.ATTTT.classGPT.repositories.ResourceRepository;
+import io.ATTTT.classGPT.util.TermDates;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Moves finished courses out of the hot tables into one compressed zip per
+ * course under {@code classgpt.archive.dir}:
+ * <pre>
+ *   manifest.json      course details and counts
+ *   posts.jsonl        one thread per line in id order, replies included
+ *   resources.jsonl    one resource per line
+ *   resources/{id}     the resource file bytes
+ * </pre>
+ * Posts and replies are scrolled side by side in post id order and the
+ * persistence context is cleared every {@value #BATCH_SIZE} threads, so the
+ * snapshot is written in constant memory however large the course is.
+ * Posts, replies, likes and resources of the course are then deleted and the
+ * course is marked archived. Enrollments stay, so the same access checks
+ * apply to the read-only archive endpoints, which read straight from the zip.
+ * A zip is only served once its course has {@code archivedAt} set.
+ * <p>
+ * The scheduled job ({@code classgpt.archive.cron}, off by default) archives
+ * courses whose term ended more than {@code classgpt.archive.after-term-end}
+ * ago; admins can archive any course.
+ */
+@Service
+public class CourseArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseArchiveService.class);
+
+    static final int BATCH_SIZE = 50;
+
+    static final String MANIFEST_ENTRY = "manifest.json";
+    static final String POSTS_ENTRY = "posts.jsonl";
+    static final String RESOURCES_ENTRY = "resources.jsonl";
+    static final String RESOURCE_DATA_PREFIX = "resources/";
+
+    private final CourseRepository courseRepository;
+    private final PostRepository postRepository;
+    private final RepliesRepository repliesRepository;
+    private final ResourceRepository resourceRepository;
+    private final ResourceService resourceService;
+    private final PostLikesService postLikesService;
+    private final CoursePartitionService partitionService;
+    private final ThreadDocumentCache threadDocumentCache;
+    private final InstructorActivityCache instructorActivityCache;
+    private final EnrollmentCache enrollmentCache;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path archiveDir;
+    private final Duration afterTermEnd;
+    private volatile Boolean postgres;
+
+    public CourseArchiveService(CourseRepository courseRepository,
+                                PostRepository postRepository,
+                                RepliesRepository repliesRepository,
+                                ResourceRepository resourceRepository,
+                                ResourceService resourceService,
+                                PostLikesService postLikesService,
+                                CoursePartitionService partitionService,
+                                ThreadDocumentCache threadDocumentCache,
+                                InstructorActivityCache instructorActivityCache,
+                                EnrollmentCache enrollmentCache,
+                                EntityManager entityManager,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${classgpt.archive.dir:archive}") String archiveDir,
+                                @Value("${classgpt.archive.after-term-end:60d}") Duration afterTermEnd) {
+        this.courseRepository = courseRepository;
+        this.postRepository = postRepository;
+        this.repliesRepository = repliesRepository;
+        this.resourceRepository = resourceRepository;
+        this.resourceService = resourceService;
+        this.postLikesService = postLikesService;
+        this.partitionService = partitionService;
+        this.threadDocumentCache = threadDocumentCache;
+        this.instructorActivityCache = instructorActivityCache;
+        this.enrollmentCache = enrollmentCache;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.archiveDir = Path.of(archiveDir);
+        this.afterTermEnd = afterTermEnd;
+    }
+
+    @Scheduled(cron = "${classgpt.archive.cron:-}")
+    public void archiveFinishedTerms() {
+        LocalDate cutoff = LocalDate.now().minusDays(afterTermEnd.toDays());
+        for (Course course : courseRepository.findAll()) {
+            if (course.isArchived()) continue;
+            Optional<LocalDate> end = TermDates.endOf(course.getTerm());
+            if (end.isEmpty() || !end.get().isBefore(cutoff)) continue;
+            try {
+                archive(course.getId());
+            } catch (RuntimeException e) {
+                log.warn("Archiving course {} ({}) failed", course.getId(), course.getTerm(), e);
+            }
+        }
+    }
+
+    /**
+     * Snapshots the course to its zip and removes its forum and resources from
+     * the hot tables, all in one transaction on the primary. The course row
+     * stays locked throughout; new posts and resources take a shared lock on
+     * it ({@link CourseService#lockForWrite}), so none can land between the
+     * snapshot and the deletes, and they see the course archived once they
+     * get the row. The zip is written to a .tmp file, synced to disk and
+     * moved into place just before the commit, so a failed move rolls the
+     * archive back. Readers ignore the zip until archivedAt is set, and a
+     * rollback deletes it.
+     */
+    public ArchiveManifest archive(Long courseId) {
+        List<Long> postIds = new ArrayList<>();
+        ArchiveManifest manifest = transactionTemplate.execute(status -> {
+            Course course = courseRepository.findByIdForUpdate(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found"));
+            // May have been loaded before the lock, or served by the second-level cache
+            entityManager.refresh(course);
+            if (course.isArchived()) {
+                throw new IllegalStateException("Course " + courseId + " is already archived");
+            }
+
+            Path target = archiveFile(courseId);
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        discardSnapshot(courseId, tmp, target);
+                    }
+                }
+            });
+
+            ArchiveManifest written = writeSnapshot(course, tmp, postIds);
+            deleteHotRows(courseId);
+            course.setArchivedAt(written.archivedAt());
+            courseRepository.saveAndFlush(course);
+            publishSnapshot(courseId, tmp, target);
+            return written;
+        });
+
+        // Other nodes still cache the open course; lockForWrite stops their writes
+        entityManager.getEntityManagerFactory().getCache().evict(Course.class, courseId);
+        postIds.forEach(threadDocumentCache::evict);
+        instructorActivityCache.evictCourse(courseId);
+        enrollmentCache.evictCourse(courseId);
+        log.info("Archived course {}: {} posts, {} replies, {} resources",
+                courseId, manifest.posts(), manifest.replies(), manifest.resources());
+        return manifest;
+    }
+
+    // ========== READ-ONLY ARCHIVE ACCESS ==========
+
+    public Optional<ArchiveManifest> manifest(Long courseId) {
+        return readEntry(courseId, MANIFEST_ENTRY, in -> objectMapper.readValue(in, ArchiveManifest.class));
+    }
+
+    // Newest first, as the live forum lists them
+    public List<ArchivedPost> posts(Long courseId) {
+        List<ArchivedPost> posts = new ArrayList<>(readLines(courseId, POSTS_ENTRY, ArchivedPost.class));
+        Collections.reverse(posts);
+        return posts;
+    }
+
+    public Optional<ArchivedPost> post(Long courseId, Long postId) {
+        return posts(courseId).stream()
+                .filter(p -> p.id().equals(postId))
+                .findFirst();
+    }
+
+    public List<ArchivedResource> resources(Long courseId) {
+        return readLines(courseId, RESOURCES_ENTRY, ArchivedResource.class);
+    }
+
+    public Optional<byte[]> resourceData(Long courseId, Long resourceId) {
+        return readEntry(courseId, RESOURCE_DATA_PREFIX + resourceId, InputStream::readAllBytes);
+    }
+
+    Path archiveFile(Long courseId) {
+        return archiveDir.resolve("course-" + courseId + ".zip");
+    }
+
+    // ========== WRITING ==========
+
+    private ArchiveManifest writeSnapshot(Course course, Path tmp, List<Long> postIds) {
+        Long courseId = course.getId();
+        int replyCount = 0;
+        List<Resource> resources = resourceRepository.findByCourseIdOrderByUploadedAtDesc(courseId);
+        LocalDateTime archivedAt = LocalDateTime.now();
+
+        ArchiveManifest manifest;
+        try {
+            Files.createDirectories(archiveDir);
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(tmp))) {
+                zip.putNextEntry(new ZipEntry(POSTS_ENTRY));
+                try (Stream<Post> posts = postRepository.streamByCourseId(courseId);
+                     Stream<Replies> replies = repliesRepository.streamPublishedByCourseIdInThreadOrder(courseId)) {
+                    ThreadReplies threads = new ThreadReplies(replies.iterator());
+                    for (Post post : (Iterable<Post>) posts::iterator) {
+                        List<ArchivedReply> thread = threads.take(post.getId());
+                        writeLine(zip, toArchived(post, thread));
+                        postIds.add(post.getId());
+                        replyCount += thread.size();
+                        if (postIds.size() % BATCH_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+                zip.closeEntry();
+
+                zip.putNextEntry(new ZipEntry(RESOURCES_ENTRY));
+                for (Resource r : resources) {
+                    writeLine(zip, new ArchivedResource(r.getId(), r.getTitle(), r.getOriginalFilename(),
+                            r.getContentType(), r.getSizeBytes(), r.getUploadedAt()));
+                }
+                zip.closeEntry();
+
+                // Read as a scalar, so only one blob is on the heap at a time
+                for (Resource r : resources) {
+                    Optional<byte[]> data = resourceService.loadData(r.getId());
+                    if (data.isEmpty()) continue;
+                    zip.putNextEntry(new ZipEntry(RESOURCE_DATA_PREFIX + r.getId()));
+                    zip.write(data.get());
+                    zip.closeEntry();
+                }
+
+                manifest = new ArchiveManifest(courseId, course.getCode(), course.getName(),
+                        course.getTerm(), archivedAt, postIds.size(), replyCount, resources.size());
+                zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+                zip.write(objectMapper.writeValueAsBytes(manifest));
+                zip.closeEntry();
+            }
+            return manifest;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive for course " + courseId, e);
+        }
+    }
+
+    /**
+     * Walks the course's replies, grouped by post, alongside the posts stream
+     * and hands out one thread's replies at a time. Each reply is mapped as it
+     * is read, so clearing the persistence context never leaves one half-used.
+     */
+    private static final class ThreadReplies {
+        private final Iterator<Replies> replies;
+        private Long nextPostId;
+        private ArchivedReply next;
+
+        ThreadReplies(Iterator<Replies> replies) {
+            this.replies = replies;
+        }
+
+        List<ArchivedReply> take(Long postId) {
+            List<ArchivedReply> thread = new ArrayList<>();
+            while (true) {
+                if (next == null) {
+                    if (!replies.hasNext()) break;
+                    Replies r = replies.next();
+                    nextPostId = r.getPost().getId();
+                    next = toArchived(r);
+                }
+                if (nextPostId > postId) break;
+                if (nextPostId.equals(postId)) {
+                    thread.add(next);
+                }
+                next = null;
+            }
+            return thread;
+        }
+    }
+
+    // Throws, rolling the archive back, unless the zip is durably in place
+    private void publishSnapshot(Long courseId, Path tmp, Path target) {
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not publish archive for course " + courseId, e);
+        }
+    }
+
+    private void discardSnapshot(Long courseId, Path tmp, Path target) {
+        try {
+            Files.deleteIfExists(tmp);
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            // Harmless: readers ignore the zip while the course is not archived
+            log.warn("Could not discard archive {} for course {}", target, courseId, e);
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    private static ArchivedReply toArchived(Replies r) {
+        return new ArchivedReply(
+                r.getId(),
+                r.getBody(),
+                nameOf(r.getAuthor()),
+                r.isFromInstructor(),
+                r.isLlmGenerated(),
+                r.isInstructorAnswer(),
+                r.isEndorsed(),
+                r.getParentReplyId(),
+                r.getCreatedAt());
+    }
+
+    private ArchivedPost toArchived(Post p, List<ArchivedReply> replies) {
+        Account author = p.getAccount();
+        return new ArchivedPost(
+                p.getId(),
+                p.getTitle(),
+                p.getBody(),
+                nameOf(author),
+                author != null && author.hasRole("ROLE_ADMIN"),
+                p.getCreatedAt(),
+                p.getModifiedAt(),
+                p.getTags() != null ? List.copyOf(p.getTags()) : List.of(),
+                postLikesService.currentUpVotes(p),
+                p.isEndorsed(),
+                p.getStudentAnswer(),
+                p.isStudentAnswerEndorsed(),
+                replies);
+    }
+
+    private static String nameOf(Account account) {
+        return account != null ? (account.getFirstName() + " " + account.getLastName()).trim() : null;
+    }
+
+    private void deleteHotRows(Long courseId) {
+        if (isPostgres()) {
+            // @Lob columns are large objects on PostgreSQL and outlive their rows
+            jdbcTemplate.queryForList("""
+                    SELECT lo_unlink(c.compressed) FROM resource_text_chunk c
+                    JOIN resource r ON r.id = c.resource_id
+                    WHERE r.course_id = ?
+                    """, Integer.class, courseId);
+            jdbcTemplate.queryForList("""
+                    SELECT lo_unlink(b.data) FROM resource_blob b
+                    JOIN resource r ON r.id = b.resource_id
+                    WHERE r.course_id = ? AND b.data IS NOT NULL
+                    """, Integer.class, courseId);
+        }
+
+        jdbcTemplate.update("DELETE FROM post_likes WHERE course_id = ?", courseId);
+        jdbcTemplate.update("DELETE FROM replies WHERE course_id = ?", courseId);
+        jdbcTemplate.update("DELETE FROM post_tags WHERE post_id IN (SELECT id FROM post WHERE course_id = ?)", courseId);
+        jdbcTemplate.update("DELETE FROM post WHERE course_id = ?", courseId);
+        jdbcTemplate.update("DELETE FROM resource_text_chunk WHERE resource_id IN (SELECT id FROM resource WHERE course_id = ?)", courseId);
+        jdbcTemplate.update("DELETE FROM resource_blob WHERE resource_id IN (SELECT id FROM resource WHERE course_id = ?)", courseId);
+        jdbcTemplate.update("DELETE FROM resource WHERE course_id = ?", courseId);
+
+        // Drop the course's own partitions, now empty, if it had any
+        if (partitionService.isSupported()) {
+            partitionService.merge(courseId);
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con ->
+                    con.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equals(product);
+        }
+        return postgres;
+    }
+
+    // ========== READING ==========
+
+    private interface EntryReader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
+    private <T> Optional<T> readEntry(Long courseId, String name, EntryReader<T> reader) {
+        Path file = archiveFile(courseId);
+        if (!Files.exists(file)) return Optional.empty();
+        // Left over from a rolled-back archive
+        if (!courseRepository.findById(courseId).map(Course::isArchived).orElse(false)) return Optional.empty();
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry entry = zip.getEntry(name);
+            if (entry == null) return Optional.empty();
+            try (InputStream in = zip.getInputStream(entry)) {
+                return Optional.of(reader.read(in));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive for course " + courseId, e);
+        }
+    }
+
+    private <T> List<T> readLines(Long courseId, String name, Class<T> type) {
+        return readEntry(courseId, name, in -> {
+            List<T> items = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    items.add(objectMapper.readValue(line, type));
+                }
+            }
+            return items;
+        }).orElse(List.of());
+    }
+}
@@ -0,0 +1,185 @@
+package io.ATTTT.classGPT.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves courses in and out of their own partitions of the course-partitioned
+ * tables (replies and post_likes, see migration V3). Every course starts in
+ * the DEFAULT partition; isolating a large course gives it its own tables and
+ * indexes, so its growth and vacuuming stop affecting everyone else.
+ * PostgreSQL only.
+ */
+@Service
+public class CoursePartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CoursePartitionService.class);
+
+    static final List<String> PARTITIONED_TABLES = List.of("replies", "post_likes");
+
+    /**
+     * One partition of a partitioned table. {@code courseId} is null for the
+     * DEFAULT partition; {@code estimatedRows} comes from planner statistics.
+     */
+    public record PartitionInfo(String table, String partition, Long courseId, long estimatedRows, long bytes) {
+    }
+
+    public record CourseSize(Long courseId, long replies) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean supported;
+
+    public CoursePartitionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isSupported() {
+        if (supported == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con ->
+                    con.getMetaData().getDatabaseProductName());
+            supported = "PostgreSQL".equals(product);
+        }
+        return supported;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PartitionInfo> partitions() {
+        requireSupported();
+        return jdbcTemplate.query("""
+                SELECT parent.relname AS parent_name,
+                       child.relname AS child_name,
+                       child.reltuples AS estimated_rows,
+                       pg_total_relation_size(child.oid) AS bytes
+                FROM pg_inherits i
+                JOIN pg_class parent ON parent.oid = i.inhparent
+                JOIN pg_class child ON child.oid = i.inhrelid
+                WHERE parent.relname IN ('replies', 'post_likes')
+                ORDER BY parent.relname, bytes DESC
+                """,
+                (rs, i) -> {
+                    String table = rs.getString("parent_name");
+                    String partition = rs.getString("child_name");
+                    return new PartitionInfo(
+                            table,
+                            partition,
+                            courseIdOf(table, partition),
+                            Math.max(0, rs.getLong("estimated_rows")),
+                            rs.getLong("bytes"));
+                });
+    }
+
+    /**
+     * Courses still in the DEFAULT partition, largest first by reply count.
+     */
+    @Transactional(readOnly = true)
+    public List<CourseSize> largestSharedCourses(int limit) {
+        requireSupported();
+        return jdbcTemplate.query("""
+                SELECT course_id, COUNT(*) AS replies
+                FROM replies_default
+                GROUP BY course_id
+                ORDER BY replies DESC
+                LIMIT ?
+                """,
+                (rs, i) -> new CourseSize(rs.getLong("course_id"), rs.getLong("replies")),
+                limit);
+    }
+
+    /**
+     * Gives the course its own partition of every partitioned table, moving
+     * its rows out of DEFAULT. Writes to the shared partition wait until the
+     * move commits, and reads of it wait while the new partition is attached.
+     * Does nothing for tables where the course already has a partition.
+     */
+    @Transactional
+    public void isolate(Long courseId) {
+        requireSupported();
+        for (String table : PARTITIONED_TABLES) {
+            String partition = partitionName(table, courseId);
+            if (exists(partition)) continue;
+
+            jdbcTemplate.execute("LOCK TABLE " + table + "_default IN EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + table + " INCLUDING DEFAULTS)");
+            int moved = jdbcTemplate.update(
+                    "WITH moved AS (DELETE FROM " + table + "_default WHERE course_id = ? RETURNING *) "
+                            + "INSERT INTO " + partition + " SELECT * FROM moved",
+                    courseId);
+            // Indexes, keys and foreign keys are created on the partition as it attaches
+            jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + partition
+                    + " FOR VALUES IN (" + courseId + ")");
+            log.info("Isolated course {} in {} ({} rows moved)", courseId, partition, moved);
+        }
+    }
+
+    /**
+     * Moves the course back into the DEFAULT partitions and drops its own.
+     */
+    @Transactional
+    public void merge(Long courseId) {
+        requireSupported();
+        for (String table : PARTITIONED_TABLES) {
+            String partition = partitionName(table, courseId);
+            if (!exists(partition)) continue;
+
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            int moved = jdbcTemplate.update("INSERT INTO " + table + " SELECT * FROM " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Merged course {} back into {}_default ({} rows moved)", courseId, table, moved);
+        }
+    }
+
+    /**
+     * Isolates every course in the DEFAULT partition with at least
+     * {@code minReplies} replies. Returns the ids of the courses moved.
+     */
+    @Transactional
+    public List<Long> rebalance(long minReplies) {
+        requireSupported();
+        List<Long> isolated = new ArrayList<>();
+        List<Long> candidates = jdbcTemplate.queryForList("""
+                SELECT course_id
+                FROM replies_default
+                GROUP BY course_id
+                HAVING COUNT(*) >= ?
+                """, Long.class, minReplies);
+        for (Long courseId : candidates) {
+            isolate(courseId);
+            isolated.add(courseId);
+        }
+        return isolated;
+    }
+
+    private boolean exists(String relation) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, relation));
+    }
+
+    private void requireSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Course partitioning needs PostgreSQL");
+        }
+    }
+
+    // Course ids are Longs, so the generated names are safe to splice into DDL
+    static String partitionName(String table, Long courseId) {
+        return table + "_c" + courseId;
+    }
+
+    private static Long courseIdOf(String table, String partition) {
+        String prefix = table + "_c";
+        if (!partition.startsWith(prefix)) return null;
+        try {
+            return Long.parseLong(partition.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import io.ATTTT.classGPT.models.Account;
 import io.ATTTT.classGPT.models.Course;
 import io.ATTTT.classGPT.repositories.CourseRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -14,6 +16,15 @@ public class CourseService {
 
     private final CourseRepository courseRepo;
 
+    /**
+     * Thrown when writing to a course that has been archived.
+     */
+    public static class ArchivedException extends IllegalStateException {
+        public ArchivedException(Long courseId) {
+            super("Course " + courseId + " is archived");
+        }
+    }
+
     public CourseService(CourseRepository courseRepo) {
         this.courseRepo = courseRepo;
     }
@@ -32,6 +43,19 @@ public class CourseService {
         return courseRepo.findById(id);
     }
 
+    /**
+     * Keeps the course from being archived until the caller's transaction
+     * ends, and fails if it already has been. Asks the database, since the
+     * cached {@link Course#isArchived()} can lag behind an archive on
+     * another node.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockForWrite(Long courseId) {
+        if (courseRepo.lockIfNotArchived(courseId).isEmpty()) {
+            throw new ArchivedException(courseId);
+        }
+    }
+
     private String generateJoinCode() {
         String code;
         do {
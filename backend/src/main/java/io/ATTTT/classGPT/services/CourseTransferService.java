@@ -0,0 +1,554 @@
+package io.ATTTT.classGPT.services;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ATTTT.classGPT.dto.CourseExportManifest;
+import io.ATTTT.classGPT.dto.CourseImportResult;
+import io.ATTTT.classGPT.dto.CreateCourseRequest;
+import io.ATTTT.classGPT.dto.ExportedLike;
+import io.ATTTT.classGPT.dto.ExportedPost;
+import io.ATTTT.classGPT.dto.ExportedReply;
+import io.ATTTT.classGPT.dto.ExportedResource;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Course;
+import io.ATTTT.classGPT.models.Enrollment;
+import io.ATTTT.classGPT.models.Post;
+import io.ATTTT.classGPT.models.PostLikes;
+import io.ATTTT.classGPT.models.Replies;
+import io.ATTTT.classGPT.models.Resource;
+import io.ATTTT.classGPT.repositories.AccountRepository;
+import io.ATTTT.classGPT.repositories.CourseRepository;
+import io.ATTTT.classGPT.repositories.EnrollmentRepository;
+import io.ATTTT.classGPT.repositories.PostLikesRepository;
+import io.ATTTT.classGPT.repositories.PostRepository;
+import io.ATTTT.classGPT.repositories.RepliesRepository;
+import io.ATTTT.classGPT.repositories.ResourceRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Moves a live course between terms or nodes as one zip:
+ * <pre>
+ *   manifest.json      course details, always the first entry
+ *   posts.jsonl        one post per line
+ *   replies.jsonl      one published reply per line, in id order
+ *   likes.jsonl        one like per line
+ *   resources.jsonl    one resource per line
+ *   resources/{id}     the resource file bytes
+ * </pre>
+ * Export scrolls each table with a fetch-size cursor and clears the
+ * persistence context every {@value #BATCH_SIZE} rows, so memory stays flat
+ * however large the course is.
+ * Import reads the zip front to back from the request body, inserting in
+ * batches of {@value #BATCH_SIZE} into a new course, and sends the resources
+ * to File Search again. People are matched by email; unknown authors become
+ * the importer and unknown likers are dropped.
+ * <p>
+ * Unlike {@link CourseArchiveService} nothing is removed from the source.
+ * Enrollments are not carried over; the importer is enrolled as owner.
+ */
+@Service
+public class CourseTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseTransferService.class);
+
+    static final int FORMAT_VERSION = 1;
+    static final int BATCH_SIZE = 50;
+
+    static final String MANIFEST_ENTRY = "manifest.json";
+    static final String POSTS_ENTRY = "posts.jsonl";
+    static final String REPLIES_ENTRY = "replies.jsonl";
+    static final String LIKES_ENTRY = "likes.jsonl";
+    static final String RESOURCES_ENTRY = "resources.jsonl";
+    static final String RESOURCE_DATA_PREFIX = "resources/";
+
+    private final CourseRepository courseRepository;
+    private final CourseService courseService;
+    private final EnrollmentRepository enrollmentRepository;
+    private final AccountRepository accountRepository;
+    private final PostRepository postRepository;
+    private final RepliesRepository repliesRepository;
+    private final PostLikesRepository postLikesRepository;
+    private final ResourceRepository resourceRepository;
+    private final ResourceService resourceService;
+    private final PostLikesService postLikesService;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public CourseTransferService(CourseRepository courseRepository,
+                                 CourseService courseService,
+                                 EnrollmentRepository enrollmentRepository,
+                                 AccountRepository accountRepository,
+                                 PostRepository postRepository,
+                                 RepliesRepository repliesRepository,
+                                 PostLikesRepository postLikesRepository,
+                                 ResourceRepository resourceRepository,
+                                 ResourceService resourceService,
+                                 PostLikesService postLikesService,
+                                 EntityManager entityManager,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper) {
+        this.courseRepository = courseRepository;
+        this.courseService = courseService;
+        this.enrollmentRepository = enrollmentRepository;
+        this.accountRepository = accountRepository;
+        this.postRepository = postRepository;
+        this.repliesRepository = repliesRepository;
+        this.postLikesRepository = postLikesRepository;
+        this.resourceRepository = resourceRepository;
+        this.resourceService = resourceService;
+        this.postLikesService = postLikesService;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    // ========== EXPORT ==========
+
+    /**
+     * Writes the course to {@code out} as it is read. The caller owns the
+     * stream; it is finished but not closed.
+     */
+    public void exportCourse(Long courseId, OutputStream out) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            Course course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found"));
+
+            try {
+                ZipOutputStream zip = new ZipOutputStream(out);
+
+                zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+                zip.write(objectMapper.writeValueAsBytes(new CourseExportManifest(FORMAT_VERSION, course.getId(),
+                        course.getCode(), course.getName(), course.getTerm(), LocalDateTime.now())));
+                zip.closeEntry();
+
+                int posts = writeEntry(zip, POSTS_ENTRY, postRepository.streamByCourseId(courseId), this::toExportedPost);
+                int replies = writeEntry(zip, REPLIES_ENTRY, repliesRepository.streamPublishedByCourseId(courseId),
+                        this::toExportedReply);
+                int likes = writeEntry(zip, LIKES_ENTRY, postLikesRepository.streamByCourseId(courseId),
+                        l -> new ExportedLike(l.getPost().getId(), emailOf(l.getAccount()), l.getCreatedAt()));
+
+                List<Resource> resources = resourceRepository.findByCourseIdOrderByUploadedAtDesc(courseId);
+                zip.putNextEntry(new ZipEntry(RESOURCES_ENTRY));
+                for (Resource r : resources) {
+                    writeLine(zip, new ExportedResource(r.getId(), r.getTitle(),
+                            r.getOriginalFilename(), r.getContentType()));
+                }
+                zip.closeEntry();
+
+                // Read as a scalar, so only one blob is on the heap at a time
+                for (Resource r : resources) {
+                    Optional<byte[]> data = resourceService.loadData(r.getId());
+                    if (data.isEmpty()) continue;
+                    zip.putNextEntry(new ZipEntry(RESOURCE_DATA_PREFIX + r.getId()));
+                    zip.write(data.get());
+                    zip.closeEntry();
+                }
+
+                zip.finish();
+                log.info("Exported course {}: {} posts, {} replies, {} likes, {} resources",
+                        courseId, posts, replies, likes, resources.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not export course " + courseId, e);
+            }
+        });
+    }
+
+    private interface LineMapper<T> {
+        Object map(T entity);
+    }
+
+    private <T> int writeEntry(ZipOutputStream zip, String name, Stream<T> rows, LineMapper<T> mapper)
+            throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        int count = 0;
+        try (rows) {
+            for (T row : (Iterable<T>) rows::iterator) {
+                writeLine(zip, mapper.map(row));
+                if (++count % BATCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        zip.closeEntry();
+        return count;
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    private ExportedPost toExportedPost(Post p) {
+        return new ExportedPost(
+                p.getId(),
+                p.getTitle(),
+                p.getBody(),
+                emailOf(p.getAccount()),
+                p.getCreatedAt(),
+                p.getModifiedAt(),
+                p.getTags() != null ? List.copyOf(p.getTags()) : List.of(),
+                p.isPinned(),
+                postLikesService.currentUpVotes(p),
+                p.isEndorsed(),
+                emailOf(p.getEndorsedBy()),
+                p.getEndorsedAt(),
+                p.getStudentAnswer(),
+                emailOf(p.getStudentAnswerAuthor()),
+                p.getStudentAnswerUpdatedAt(),
+                p.isStudentAnswerEndorsed(),
+                emailOf(p.getStudentAnswerEndorsedBy()),
+                p.getStudentAnswerEndorsedAt());
+    }
+
+    private ExportedReply toExportedReply(Replies r) {
+        return new ExportedReply(
+                r.getId(),
+                r.getPost().getId(),
+                r.getParentReplyId(),
+                r.getBody(),
+                emailOf(r.getAuthor()),
+                r.getCreatedAt(),
+                r.getModifiedAt(),
+                r.isFromInstructor(),
+                r.isInstructorAnswer(),
+                r.isLlmGenerated(),
+                r.isEndorsed(),
+                r.isReviewed(),
+                r.getReviewedAt(),
+                emailOf(r.getReviewedBy()),
+                r.getReviewFeedback(),
+                r.isFlagged(),
+                r.getFlaggedAt(),
+                emailOf(r.getFlaggedBy()),
+                r.getFlagReason(),
+                r.isInstructorEdited(),
+                r.isReplacedByInstructor(),
+                r.getEditedAt(),
+                emailOf(r.getEditedBy()),
+                r.getOriginalLlmResponse());
+    }
+
+    private static String emailOf(Account account) {
+        return account != null ? account.getEmail() : null;
+    }
+
+    // ========== IMPORT ==========
+
+    /**
+     * Creates a new course owned by {@code importer} from an export read off
+     * {@code in}. {@code overrides} replaces the exported code, name and term
+     * where set, e.g. to import last term's course as this term's.
+     * <p>
+     * Each batch commits on its own, so a failed import leaves a partial
+     * course behind; the error names it so it can be removed.
+     */
+    public CourseImportResult importCourse(Account importer, InputStream in, CreateCourseRequest overrides) {
+        ZipInputStream zip = new ZipInputStream(in);
+        try {
+            ZipEntry first = zip.getNextEntry();
+            if (first == null || !MANIFEST_ENTRY.equals(first.getName())) {
+                throw new IllegalArgumentException("Not a course export: " + MANIFEST_ENTRY + " must come first");
+            }
+            CourseExportManifest manifest = objectMapper.readValue(unclosable(zip), CourseExportManifest.class);
+            if (manifest.formatVersion() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported export format " + manifest.formatVersion());
+            }
+
+            Course course = transactionTemplate.execute(status -> {
+                Course created = courseService.createCourse(importer, new CreateCourseRequest(
+                        firstNonBlank(overrides.code(), manifest.code()),
+                        firstNonBlank(overrides.name(), manifest.name()),
+                        firstNonBlank(overrides.term(), manifest.term())));
+                Enrollment e = new Enrollment();
+                e.setAccount(importer);
+                e.setCourse(created);
+                enrollmentRepository.save(e);
+                return created;
+            });
+
+            try {
+                Import state = new Import(importer.getId(), course);
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    String name = entry.getName();
+                    switch (name) {
+                        case POSTS_ENTRY -> readLines(zip, ExportedPost.class, batch -> importPosts(state, batch));
+                        case REPLIES_ENTRY -> readLines(zip, ExportedReply.class, batch -> importReplies(state, batch));
+                        case LIKES_ENTRY -> readLines(zip, ExportedLike.class, batch -> importLikes(state, batch));
+                        case RESOURCES_ENTRY -> readLines(zip, ExportedResource.class,
+                                batch -> batch.forEach(r -> state.resources.put(r.id(), r)));
+                        default -> {
+                            if (name.startsWith(RESOURCE_DATA_PREFIX)) {
+                                importResource(state, Long.valueOf(name.substring(RESOURCE_DATA_PREFIX.length())),
+                                        zip.readAllBytes());
+                            } else {
+                                log.warn("Skipping unknown entry {} in course import", name);
+                            }
+                        }
+                    }
+                }
+
+                resolveReplyParents(state);
+
+                CourseImportResult result = new CourseImportResult(course.getId(), course.getJoinCode(),
+                        state.postIds.size(), state.replyIds.size(), state.likes, state.resourceCount);
+                log.info("Imported course {} from source course {}: {} posts, {} replies, {} likes, {} resources",
+                        course.getId(), manifest.sourceCourseId(), result.posts(), result.replies(),
+                        result.likes(), result.resources());
+                return result;
+            } catch (RuntimeException e) {
+                log.error("Import into course {} failed partway; the course is incomplete", course.getId(), e);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read course export", e);
+        }
+    }
+
+    /**
+     * Old-to-new id mappings and counters for one import run.
+     */
+    private static final class Import {
+        final Long importerId;
+        final Course course;
+        final Map<Long, Long> postIds = new HashMap<>();
+        final Map<Long, Long> replyIds = new HashMap<>();
+        // New reply id to exported parent id, linked once every reply exists
+        final Map<Long, Long> replyParents = new HashMap<>();
+        final Map<Long, ExportedResource> resources = new HashMap<>();
+        final Map<String, Optional<Long>> accountIds = new HashMap<>();
+        int likes;
+        int resourceCount;
+
+        Import(Long importerId, Course course) {
+            this.importerId = importerId;
+            this.course = course;
+        }
+    }
+
+    private <T> void readLines(InputStream in, Class<T> type, Consumer<List<T>> onBatch) throws IOException {
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        try (MappingIterator<T> lines = objectMapper.readerFor(type).readValues(unclosable(in))) {
+            while (lines.hasNext()) {
+                batch.add(lines.next());
+                if (batch.size() == BATCH_SIZE) {
+                    onBatch.accept(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            onBatch.accept(batch);
+        }
+    }
+
+    private void importPosts(Import state, List<ExportedPost> batch) {
+        inBatch(() -> {
+            Course course = entityManager.getReference(Course.class, state.course.getId());
+            List<Post> posts = new ArrayList<>(batch.size());
+            for (ExportedPost e : batch) {
+                Post p = new Post();
+                p.setCourse(course);
+                p.setTitle(e.title());
+                p.setBody(e.body());
+                p.setAccount(accountOrImporter(state, e.authorEmail()));
+                p.setCreatedAt(e.createdAt());
+                p.setModifiedAt(e.modifiedAt());
+                p.setTags(new ArrayList<>(e.tags() != null ? e.tags() : List.of()));
+                p.setPinned(e.pinned());
+                p.setUpVotes(e.upVotes());
+                p.setEndorsed(e.endorsed());
+                p.setEndorsedBy(account(state, e.endorsedByEmail()));
+                p.setEndorsedAt(e.endorsedAt());
+                p.setStudentAnswer(e.studentAnswer());
+                p.setStudentAnswerAuthor(account(state, e.studentAnswerAuthorEmail()));
+                p.setStudentAnswerUpdatedAt(e.studentAnswerUpdatedAt());
+                p.setStudentAnswerEndorsed(e.studentAnswerEndorsed());
+                p.setStudentAnswerEndorsedBy(account(state, e.studentAnswerEndorsedByEmail()));
+                p.setStudentAnswerEndorsedAt(e.studentAnswerEndorsedAt());
+                posts.add(p);
+            }
+            postRepository.saveAll(posts);
+            entityManager.flush();
+            for (int i = 0; i < batch.size(); i++) {
+                state.postIds.put(batch.get(i).id(), posts.get(i).getId());
+            }
+        });
+    }
+
+    private void importReplies(Import state, List<ExportedReply> batch) {
+        inBatch(() -> {
+            List<Replies> replies = new ArrayList<>(batch.size());
+            List<ExportedReply> kept = new ArrayList<>(batch.size());
+            for (ExportedReply e : batch) {
+                Long postId = state.postIds.get(e.postId());
+                if (postId == null) {
+                    log.warn("Skipping reply {} of unknown post {}", e.id(), e.postId());
+                    continue;
+                }
+                Replies r = new Replies();
+                r.setPost(entityManager.getReference(Post.class, postId));
+                r.setCourseId(state.course.getId());
+                r.setBody(e.body());
+                r.setAuthor(accountOrImporter(state, e.authorEmail()));
+                r.setCreatedAt(e.createdAt());
+                r.setModifiedAt(e.modifiedAt());
+                r.setFromInstructor(e.fromInstructor());
+                r.setInstructorAnswer(e.isInstructorAnswer());
+                r.setLlmGenerated(e.llmGenerated());
+                r.setPregenerated(false);
+                r.setEndorsed(e.endorsed());
+                r.setReviewed(e.reviewed());
+                r.setReviewedAt(e.reviewedAt());
+                r.setReviewedBy(account(state, e.reviewedByEmail()));
+                r.setReviewFeedback(e.reviewFeedback());
+                r.setFlagged(e.flagged());
+                r.setFlaggedAt(e.flaggedAt());
+                r.setFlaggedBy(account(state, e.flaggedByEmail()));
+                r.setFlagReason(e.flagReason());
+                r.setInstructorEdited(e.instructorEdited());
+                r.setReplacedByInstructor(e.replacedByInstructor());
+                r.setEditedAt(e.editedAt());
+                r.setEditedBy(account(state, e.editedByEmail()));
+                r.setOriginalLlmResponse(e.originalLlmResponse());
+                replies.add(r);
+                kept.add(e);
+            }
+            repliesRepository.saveAll(replies);
+            entityManager.flush();
+            for (int i = 0; i < kept.size(); i++) {
+                state.replyIds.put(kept.get(i).id(), replies.get(i).getId());
+                if (kept.get(i).parentReplyId() != null) {
+                    state.replyParents.put(replies.get(i).getId(), kept.get(i).parentReplyId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Second pass over replies. Ids come from pooled-lo blocks, so export
+     * order does not put a parent before its children; only now is every
+     * parent's new id known. A parent that was not exported is left unset.
+     */
+    private void resolveReplyParents(Import state) {
+        List<Long[]> links = new ArrayList<>(state.replyParents.size());
+        state.replyParents.forEach((replyId, exportedParentId) -> {
+            Long parentId = state.replyIds.get(exportedParentId);
+            if (parentId != null) {
+                links.add(new Long[]{parentId, replyId});
+            }
+        });
+        if (links.isEmpty()) return;
+
+        // Plain JDBC so the entities' @PreUpdate does not overwrite modified_at
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "UPDATE replies SET parent_reply_id = ? WHERE course_id = ? AND id = ?",
+                links, BATCH_SIZE, (ps, link) -> {
+                    ps.setLong(1, link[0]);
+                    ps.setLong(2, state.course.getId());
+                    ps.setLong(3, link[1]);
+                }));
+    }
+
+    private void importLikes(Import state, List<ExportedLike> batch) {
+        inBatch(() -> {
+            List<PostLikes> likes = new ArrayList<>(batch.size());
+            for (ExportedLike e : batch) {
+                Long postId = state.postIds.get(e.postId());
+                Account account = account(state, e.accountEmail());
+                if (postId == null || account == null) continue;
+                PostLikes like = new PostLikes();
+                like.setPost(entityManager.getReference(Post.class, postId));
+                like.setAccount(account);
+                like.setCourseId(state.course.getId());
+                like.setCreatedAt(e.createdAt());
+                likes.add(like);
+            }
+            postLikesRepository.saveAll(likes);
+            state.likes += likes.size();
+        });
+    }
+
+    private void importResource(Import state, Long exportedId, byte[] bytes) {
+        ExportedResource meta = state.resources.get(exportedId);
+        if (meta == null) {
+            log.warn("Skipping file data for unknown resource {}", exportedId);
+            return;
+        }
+        ResourceService.PreparedUpload upload = resourceService.prepare(meta.title(), meta.originalFilename(),
+                meta.contentType(), bytes);
+        Resource saved = transactionTemplate.execute(status -> resourceService.persistAll(
+                entityManager.getReference(Account.class, state.importerId), state.course, List.of(upload)).get(0));
+        resourceService.scheduleIndexing(saved, resourceService.storeForIndexing(state.course));
+        state.resourceCount++;
+    }
+
+    /**
+     * Runs one insert batch in its own transaction and clears the persistence
+     * context afterwards so it never holds more than a batch.
+     */
+    private void inBatch(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> {
+            work.run();
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private Account accountOrImporter(Import state, String email) {
+        Account account = account(state, email);
+        return account != null ? account : entityManager.getReference(Account.class, state.importerId);
+    }
+
+    private Account account(Import state, String email) {
+        if (email == null) return null;
+        Optional<Long> id = state.accountIds.computeIfAbsent(email.toLowerCase(), key ->
+                accountRepository.findByEmailIgnoreCase(key).stream().findFirst().map(Account::getId));
+        return id.map(accountId -> entityManager.getReference(Account.class, accountId)).orElse(null);
+    }
+
+    private static String firstNonBlank(String preferred, String fallback) {
+        return preferred != null && !preferred.isBlank() ? preferred : fallback;
+    }
+
+    /**
+     * Keeps Jackson from closing the zip when it finishes an entry.
+     */
+    private static InputStream unclosable(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package io.ATTTT.classGPT.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Known course memberships, consulted before the enrollment table on every
+ * access check. Only confirmed memberships are kept: enrollments are never
+ * removed, so a hit can never go stale, while a miss always falls through
+ * to the database and so sees joins made on other nodes. Courses are kept
+ * in LRU order up to a fixed limit, and archiving a course drops its entry.
+ */
+@Component
+public class EnrollmentCache {
+
+    private static final int MAX_COURSES = 2000;
+
+    private final Map<Long, Set<Long>> accountsByCourse = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Set<Long>> eldest) {
+                    return size() > MAX_COURSES;
+                }
+            });
+
+    public boolean contains(Long accountId, Long courseId) {
+        Set<Long> accounts = accountsByCourse.get(courseId);
+        return accounts != null && accounts.contains(accountId);
+    }
+
+    public void record(Long accountId, Long courseId) {
+        members(courseId).add(accountId);
+    }
+
+    public void recordAll(Long courseId, Collection<Long> accountIds) {
+        members(courseId).addAll(accountIds);
+    }
+
+    public void evictCourse(Long courseId) {
+        accountsByCourse.remove(courseId);
+    }
+
+    private Set<Long> members(Long courseId) {
+        return accountsByCourse.computeIfAbsent(courseId, id -> ConcurrentHashMap.newKeySet());
+    }
+}
@@ -1,46 +1,187 @@
 package io.ATTTT.classGPT.services;
 
+import io.ATTTT.classGPT.dto.RosterImportResult;
 import io.ATTTT.classGPT.models.Account;
 import io.ATTTT.classGPT.models.Course;
 import io.ATTTT.classGPT.models.Enrollment;
+import io.ATTTT.classGPT.repositories.AccountRepository;
 import io.ATTTT.classGPT.repositories.CourseRepository;
 import io.ATTTT.classGPT.repositories.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class EnrollmentService {
 
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentService.class);
+
+    // Matches hibernate.jdbc.batch_size and the enrollment_seq allocation
+    static final int BATCH_SIZE = 50;
+    // Keeps IN lists well under driver parameter limits
+    static final int LOOKUP_CHUNK = 500;
+
     private final CourseRepository courseRepo;
     private final EnrollmentRepository enrollRepo;
+    private final AccountRepository accountRepo;
+    private final EnrollmentCache enrollmentCache;
+    private final TransactionTemplate transactionTemplate;
 
     public EnrollmentService(CourseRepository courseRepo,
-                             EnrollmentRepository enrollRepo) {
+                             EnrollmentRepository enrollRepo,
+                             AccountRepository accountRepo,
+                             EnrollmentCache enrollmentCache,
+                             PlatformTransactionManager transactionManager) {
         this.courseRepo = courseRepo;
         this.enrollRepo = enrollRepo;
+        this.accountRepo = accountRepo;
+        this.enrollmentCache = enrollmentCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Enrollment joinByCode(Account student, String joinCode) {
         String code = joinCode == null ? null : joinCode.trim();
 
-        System.out.println("[joinByCode] rawCode='" + joinCode + "', cleaned='" + code + "'");
-
         Course course = courseRepo.findByJoinCode(code)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid code"));
 
-        if (enrollRepo.existsByAccountIdAndCourseId(student.getId(), course.getId())) {
-            return enrollRepo.findByAccountId(student.getId()).stream()
-                    .filter(e -> e.getCourse().getId().equals(course.getId()))
-                    .findFirst()
-                    .orElseThrow();
+        Enrollment enrollment = enrollRepo.findByAccountIdAndCourseId(student.getId(), course.getId())
+                .orElseGet(() -> {
+                    Enrollment e = new Enrollment();
+                    e.setAccount(student);
+                    e.setCourse(course);
+                    try {
+                        return enrollRepo.saveAndFlush(e);
+                    } catch (DataIntegrityViolationException raced) {
+                        // A concurrent join (double submit, roster import) got there first
+                        return enrollRepo.findByAccountIdAndCourseId(student.getId(), course.getId())
+                                .orElseThrow(() -> raced);
+                    }
+                });
+        enrollmentCache.record(student.getId(), course.getId());
+        return enrollment;
+    }
+
+    public boolean isEnrolled(Long accountId, Long courseId) {
+        if (enrollmentCache.contains(accountId, courseId)) {
+            return true;
+        }
+        boolean enrolled = enrollRepo.existsByAccountIdAndCourseId(accountId, courseId);
+        if (enrolled) {
+            enrollmentCache.record(accountId, courseId);
+        }
+        return enrolled;
+    }
+
+    /**
+     * Enrolls every account named in a CSV roster. The email is taken from
+     * the first field of each line that contains an {@code @}, so a header
+     * row or extra columns (name, student id) are ignored. Accounts are
+     * resolved in bulk and the new enrollments inserted in batches, all in
+     * one transaction; emails without an account are reported back.
+     */
+    public RosterImportResult importRoster(Long courseId, Reader csv) throws IOException {
+        Set<String> emails = readRosterEmails(csv);
+        try {
+            return enrollRoster(courseId, emails);
+        } catch (DataIntegrityViolationException e) {
+            // A student joined by code mid-import; they now count as existing
+            log.info("Roster import for course {} raced a join, retrying", courseId);
+            return enrollRoster(courseId, emails);
         }
+    }
+
+    private RosterImportResult enrollRoster(Long courseId, Set<String> emails) {
+        List<Long> enrolled = new ArrayList<>();
+        RosterImportResult result = transactionTemplate.execute(status -> {
+            Course course = courseRepo.findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found"));
+
+            Map<String, Account> accounts = new HashMap<>();
+            List<String> all = List.copyOf(emails);
+            for (int i = 0; i < all.size(); i += LOOKUP_CHUNK) {
+                for (Account a : accountRepo.findByLowerEmailIn(all.subList(i, Math.min(i + LOOKUP_CHUNK, all.size())))) {
+                    accounts.putIfAbsent(a.getEmail().toLowerCase(Locale.ROOT), a);
+                }
+            }
+
+            List<Long> accountIds = accounts.values().stream().map(Account::getId).distinct().toList();
+            Set<Long> existing = new HashSet<>();
+            for (int i = 0; i < accountIds.size(); i += LOOKUP_CHUNK) {
+                existing.addAll(enrollRepo.findEnrolledAccountIds(courseId,
+                        accountIds.subList(i, Math.min(i + LOOKUP_CHUNK, accountIds.size()))));
+            }
 
-        Enrollment e = new Enrollment();
-        e.setAccount(student);
-        e.setCourse(course);
-        return enrollRepo.save(e);
+            List<String> unknown = new ArrayList<>();
+            List<Enrollment> batch = new ArrayList<>(BATCH_SIZE);
+            Set<Long> seen = new HashSet<>(existing);
+            int created = 0;
+            for (String email : emails) {
+                Account account = accounts.get(email);
+                if (account == null) {
+                    unknown.add(email);
+                    continue;
+                }
+                if (!seen.add(account.getId())) continue;
+
+                Enrollment e = new Enrollment();
+                e.setAccount(account);
+                e.setCourse(course);
+                batch.add(e);
+                created++;
+                if (batch.size() == BATCH_SIZE) {
+                    enrollRepo.saveAll(batch);
+                    enrollRepo.flush();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                enrollRepo.saveAll(batch);
+                enrollRepo.flush();
+            }
+
+            enrolled.addAll(seen);
+            return new RosterImportResult(created, existing.size(), unknown);
+        });
+
+        // Warm only after commit, so a rollback never leaves phantom members
+        enrollmentCache.recordAll(courseId, enrolled);
+        log.info("Roster import for course {}: {} created, {} existing, {} unknown",
+                courseId, result.created(), result.existing(), result.unknown().size());
+        return result;
     }
 
-    public boolean isEnrolled(Long accountId, Long courseId) {
-        return enrollRepo.existsByAccountIdAndCourseId(accountId, courseId);
+    static Set<String> readRosterEmails(Reader csv) throws IOException {
+        Set<String> emails = new LinkedHashSet<>();
+        BufferedReader reader = new BufferedReader(csv);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            for (String field : line.split(",")) {
+                String value = field.trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1).trim();
+                }
+                if (value.contains("@")) {
+                    emails.add(value.toLowerCase(Locale.ROOT));
+                    break;
+                }
+            }
+        }
+        return emails;
     }
 }
@@ -5,10 +5,17 @@ import com.google.genai.types.CreateFileSearchStoreConfig;
 import com.google.genai.types.FileSearchStore;
 import io.ATTTT.classGPT.models.Course;
 import io.ATTTT.classGPT.repositories.CourseRepository;
+import io.ATTTT.classGPT.util.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Service
 public class FileSearchStoreService {
 
@@ -16,19 +23,81 @@ public class FileSearchStoreService {
 
     private final Client client;
     private final CourseRepository courseRepository;
+    private final CircuitBreaker fileSearchBreaker;
+
+    // Store names never change once assigned, so they can be cached for good
+    private final Map<Long, String> storeNames = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<String>> creations = new ConcurrentHashMap<>();
 
-    public FileSearchStoreService(Client client, CourseRepository courseRepository) {
+    public FileSearchStoreService(Client client,
+                                  CourseRepository courseRepository,
+                                  @Qualifier("fileSearchCircuitBreaker") CircuitBreaker fileSearchBreaker) {
         this.client = client;
         this.courseRepository = courseRepository;
+        this.fileSearchBreaker = fileSearchBreaker;
     }
 
 
+    /**
+     * Returns the course's File Search store, creating it on first use.
+     * Concurrent callers for the same course share a single creation; the
+     * conditional update in {@link CourseRepository#claimFileSearchStoreName}
+     * covers callers on other nodes.
+     *
+     * @throws CircuitBreaker.OpenException if the store has to be created while File Search is unavailable
+     */
     public String ensureStoreForCourse(Course course) {
+        Long courseId = course.getId();
+
+        String cached = storeNames.get(courseId);
+        if (cached != null) {
+            course.setFileSearchStoreName(cached);
+            return cached;
+        }
+
         String existing = course.getFileSearchStoreName();
         if (existing != null && !existing.isBlank()) {
+            storeNames.put(courseId, existing);
             return existing;
         }
 
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> leader = creations.putIfAbsent(courseId, mine);
+
+        String storeName;
+        if (leader == null) {
+            try {
+                storeName = loadOrCreate(course);
+                storeNames.put(courseId, storeName);
+                mine.complete(storeName);
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                creations.remove(courseId, mine);
+            }
+        } else {
+            try {
+                storeName = leader.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        course.setFileSearchStoreName(storeName);
+        return storeName;
+    }
+
+    private String loadOrCreate(Course course) {
+        // The caller's entity may be stale if another request already created the store
+        String current = courseRepository.findFileSearchStoreNameById(course.getId()).orElse(null);
+        if (current != null && !current.isBlank()) {
+            return current;
+        }
+
         String displayName = "course-" + course.getId() + "-" +
                 (course.getName() != null ? course.getName() : "classGPT");
 
@@ -37,16 +106,20 @@ public class FileSearchStoreService {
                         .displayName(displayName)
                         .build();
 
-        FileSearchStore store = client.fileSearchStores.create(config);
+        FileSearchStore store = fileSearchBreaker.execute(() -> client.fileSearchStores.create(config));
         String storeName = store.name().orElseThrow(
                 () -> new IllegalStateException("FileSearchStore name missing from response")
         );
 
-        log.info("Created File Search store {} for course {}", storeName, course.getId());
-
-        course.setFileSearchStoreName(storeName);
-        courseRepository.save(course);
+        if (courseRepository.claimFileSearchStoreName(course.getId(), storeName) == 0) {
+            String winner = courseRepository.findFileSearchStoreNameById(course.getId())
+                    .orElseThrow(() -> new IllegalStateException("Course " + course.getId() + " not found"));
+            log.warn("Course {} already has File Search store {} (set by another node); store {} is unused",
+                    course.getId(), winner, storeName);
+            return winner;
+        }
 
+        log.info("Created File Search store {} for course {}", storeName, course.getId());
         return storeName;
     }
 }
@@ -0,0 +1,205 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.models.Post;
+import io.ATTTT.classGPT.services.ThreadDocumentCache.ThreadDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Assembles the forum part of the RAG prompt within a token budget.
+ * Candidate threads are ranked by how many question terms they contain,
+ * with a boost for instructor announcements and instructor-answered
+ * threads, then added best-first until the budget is spent. The thread
+ * that crosses the budget is cut at a sentence boundary.
+ */
+@Component
+public class ForumContextBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(ForumContextBuilder.class);
+
+    // Rough average for English text with Gemini's tokenizer
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MIN_TRUNCATED_TOKENS = 80;
+    private static final double ANNOUNCEMENT_BOOST = 0.5;
+    private static final double INSTRUCTOR_ANSWER_BOOST = 0.25;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final String HEADER = """
+            === RELEVANT FORUM CONTEXT ===
+            Posts marked [INSTRUCTOR ANNOUNCEMENT] are official course information.
+            Posts marked [INSTRUCTOR ANSWERED] contain authoritative answers.
+
+            """;
+    private static final String SEPARATOR = "\n========================================\n\n";
+    private static final String TRUNCATION_MARK = " [...]";
+
+    private final PostService postService;
+    private final int tokenBudget;
+    private final DistributionSummary tokensUsed;
+    private final DistributionSummary threadsIncluded;
+    private final Counter truncatedThreads;
+
+    public ForumContextBuilder(PostService postService,
+                               MeterRegistry meterRegistry,
+                               @Value("${classgpt.rag.context-token-budget:3000}") int tokenBudget) {
+        this.postService = postService;
+        this.tokenBudget = tokenBudget;
+        this.tokensUsed = DistributionSummary.builder("classgpt.rag.context.tokens")
+                .description("Estimated tokens of forum context sent per question")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.threadsIncluded = DistributionSummary.builder("classgpt.rag.context.threads")
+                .description("Forum threads included per question")
+                .register(meterRegistry);
+        this.truncatedThreads = Counter.builder("classgpt.rag.context.truncated")
+                .description("Thread documents cut to fit the token budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code threads} holds the selected thread documents; {@link #text()}
+     * adds the header that explains the markers to the model.
+     */
+    public record ForumContext(String threads, int tokensUsed, int threadCount, int candidateCount) {
+        public boolean isEmpty() {
+            return threadCount == 0;
+        }
+
+        public String text() {
+            return isEmpty() ? "" : HEADER + threads;
+        }
+    }
+
+    private record Candidate(Post post, String document, double score, int order) {
+    }
+
+    public ForumContext build(String question, List<Post> instructorPosts, List<Post> similarPosts) {
+        Map<Long, Post> unique = new LinkedHashMap<>();
+        for (Post p : instructorPosts) unique.putIfAbsent(p.getId(), p);
+        for (Post p : similarPosts) unique.putIfAbsent(p.getId(), p);
+
+        if (unique.isEmpty()) {
+            recordMetrics(0, 0);
+            return new ForumContext("", 0, 0, 0);
+        }
+
+        Set<String> questionTerms = terms(question);
+        List<Candidate> candidates = new ArrayList<>(unique.size());
+        int order = 0;
+        for (Post p : unique.values()) {
+            ThreadDocument document = postService.buildThreadDocument(p);
+            candidates.add(new Candidate(p, document.text(), score(p, document, questionTerms), order++));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed()
+                .thenComparingInt(Candidate::order));
+
+        StringBuilder sb = new StringBuilder();
+        int used = estimateTokens(HEADER);
+        int included = 0;
+
+        for (Candidate c : candidates) {
+            int remaining = tokenBudget - used;
+            int cost = estimateTokens(c.document()) + estimateTokens(SEPARATOR);
+
+            if (cost <= remaining) {
+                sb.append(c.document()).append(SEPARATOR);
+                used += cost;
+                included++;
+                continue;
+            }
+
+            if (remaining >= MIN_TRUNCATED_TOKENS) {
+                int maxChars = (remaining - estimateTokens(SEPARATOR + TRUNCATION_MARK)) * CHARS_PER_TOKEN;
+                String cut = truncateAtSentence(c.document(), maxChars);
+                sb.append(cut).append(TRUNCATION_MARK).append(SEPARATOR);
+                used += estimateTokens(cut + TRUNCATION_MARK + SEPARATOR);
+                included++;
+                truncatedThreads.increment();
+            }
+            break;
+        }
+
+        if (included == 0) {
+            recordMetrics(0, 0);
+            return new ForumContext("", 0, 0, candidates.size());
+        }
+
+        recordMetrics(used, included);
+        log.debug("Forum context: {} of {} threads, ~{}/{} tokens",
+                included, candidates.size(), used, tokenBudget);
+        return new ForumContext(sb.toString(), used, included, candidates.size());
+    }
+
+    private void recordMetrics(int tokens, int threads) {
+        tokensUsed.record(tokens);
+        threadsIncluded.record(threads);
+    }
+
+    private double score(Post post, ThreadDocument document, Set<String> questionTerms) {
+        double relevance = 0;
+        if (!questionTerms.isEmpty()) {
+            Set<String> docTerms = terms(document.text());
+            long hits = questionTerms.stream().filter(docTerms::contains).count();
+            relevance = (double) hits / questionTerms.size();
+        }
+
+        double boost = 0;
+        if (post.getAccount() != null && post.getAccount().hasRole("ROLE_ADMIN")) {
+            boost += ANNOUNCEMENT_BOOST;
+        }
+        // Read from the cached document rather than by loading the replies
+        if (document.instructorAnswered()) {
+            boost += INSTRUCTOR_ANSWER_BOOST;
+        }
+        return relevance + boost;
+    }
+
+    private static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        if (text == null) return terms;
+        for (String t : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (t.length() >= 3) terms.add(t);
+        }
+        return terms;
+    }
+
+    static int estimateTokens(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Cuts {@code text} to at most {@code maxChars}, preferring the end of a
+     * sentence in the second half of the window, then a word boundary.
+     */
+    static String truncateAtSentence(String text, int maxChars) {
+        if (text.length() <= maxChars) return text;
+        if (maxChars <= 0) return "";
+
+        int floor = maxChars / 2;
+        for (int i = maxChars - 1; i >= floor; i--) {
+            char ch = text.charAt(i);
+            if ((ch == '.' || ch == '?' || ch == '!' || ch == '\n')
+                    && (i + 1 >= text.length() || Character.isWhitespace(text.charAt(i + 1)))) {
+                return text.substring(0, i + 1);
+            }
+        }
+
+        int space = text.lastIndexOf(' ', maxChars);
+        return text.substring(0, space > floor ? space : maxChars);
+    }
+}
@@ -13,13 +13,23 @@ import com.google.genai.types.GroundingMetadata;
 import com.google.genai.types.Part;
 import com.google.genai.types.Tool;
 import io.ATTTT.classGPT.models.Post;
-import io.ATTTT.classGPT.models.Replies;
+import io.ATTTT.classGPT.util.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 @Service
@@ -28,21 +38,72 @@ public class GeminiService {
     private static final Logger log = LoggerFactory.getLogger(GeminiService.class);
     private static final String MODEL_NAME = "gemini-2.5-flash";
     private static final int MAX_ATTEMPTS = 3;
+    private static final Pattern SOURCES_SUFFIX = Pattern.compile("(?s)Sources:.*$");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.]+$");
+
+    private static final String FORUM_FALLBACK_INTRO = """
+            The AI assistant is temporarily unavailable, so this answer could not be generated. \
+            These forum threads look related to your question:
+
+            """;
+    private static final String UNAVAILABLE_MESSAGE = """
+            The AI assistant is temporarily unavailable and no related forum threads were found. \
+            Please try again in a few minutes, or post your question to the course forum.""";
 
     private final Client client;
     private final PostService postService;
     private final ResourceService resourceService;
+    private final ForumContextBuilder forumContextBuilder;
+    private final CircuitBreaker geminiBreaker;
+    private final TransactionTemplate readOnlyTx;
+    private final Executor llmExecutor;
+    private final Counter coalescedRequests;
+    private final Counter forumFallbacks;
+    private final Counter unavailableFallbacks;
+
+    // Questions currently being answered, so identical concurrent ones share a single Gemini call
+    private final Map<InFlightKey, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
 
     public GeminiService(
             @Value("${spring.ai.google.genai.api-key}") String apiKey,
             PostService postService,
-            ResourceService resourceService
+            ResourceService resourceService,
+            ForumContextBuilder forumContextBuilder,
+            @Qualifier("geminiCircuitBreaker") CircuitBreaker geminiBreaker,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("llmExecutor") Executor llmExecutor,
+            MeterRegistry meterRegistry
     ) {
         this.client = Client.builder()
                 .apiKey(apiKey)
                 .build();
         this.postService = postService;
         this.resourceService = resourceService;
+        this.forumContextBuilder = forumContextBuilder;
+        this.geminiBreaker = geminiBreaker;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.llmExecutor = llmExecutor;
+        this.coalescedRequests = Counter.builder("classgpt.llm.coalesced")
+                .description("Questions answered by joining an identical in-flight request")
+                .register(meterRegistry);
+        this.forumFallbacks = Counter.builder("classgpt.llm.fallbacks")
+                .description("Answers served without Gemini while its circuit was open")
+                .tag("type", "forum")
+                .register(meterRegistry);
+        this.unavailableFallbacks = Counter.builder("classgpt.llm.fallbacks")
+                .description("Answers served without Gemini while its circuit was open")
+                .tag("type", "unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Identifies an answer: same course, same File Search store, same question
+     * after normalization, and the same number of resources still indexing
+     * (so a question asked after new material lands is not served the old answer).
+     */
+    private record InFlightKey(Long courseId, String storeName, String question, long pendingIndexing) {
     }
 
     public String answerForCourse(Long courseId,
@@ -50,10 +111,76 @@ public class GeminiService {
                                   String storeName,
                                   String userQuestion,
                                   String logTag) {
+        try {
+            return answerForCourseShared(courseId, courseName, storeName, userQuestion, logTag).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Answers the question, or joins an identical request that is already
+     * waiting on Gemini. The first caller computes the answer on its own
+     * thread; later callers get the same future and complete with it.
+     */
+    public CompletableFuture<String> answerForCourseShared(Long courseId,
+                                                           String courseName,
+                                                           String storeName,
+                                                           String userQuestion,
+                                                           String logTag) {
+        long indexingCount = courseId != null ? resourceService.getIndexingCount(courseId) : 0;
+        InFlightKey key = new InFlightKey(courseId, storeName, normalizeQuestion(userQuestion), indexingCount);
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalescedRequests.increment();
+            log.info("{} joined an in-flight request for the same question", logTag);
+            return existing;
+        }
+
+        try {
+            mine.complete(generateAnswer(courseId, courseName, storeName, userQuestion, indexingCount, logTag, true));
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return mine;
+    }
+
+    /**
+     * Same as {@link #answerForCourseShared} but runs on the LLM executor, so
+     * the calling thread is free while Gemini works.
+     */
+    public CompletableFuture<String> answerForCourseAsync(Long courseId,
+                                                          String courseName,
+                                                          String storeName,
+                                                          String userQuestion,
+                                                          String logTag) {
+        return CompletableFuture
+                .supplyAsync(() -> answerForCourseShared(courseId, courseName, storeName, userQuestion, logTag),
+                        llmExecutor)
+                .thenCompose(Function.identity());
+    }
+
+    static String normalizeQuestion(String question) {
+        if (question == null) return "";
+        String collapsed = WHITESPACE.matcher(question.strip().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceFirst("");
+    }
+
+    private String generateAnswer(Long courseId,
+                                  String courseName,
+                                  String storeName,
+                                  String userQuestion,
+                                  long indexingCount,
+                                  String logTag,
+                                  boolean allowFallback) {
         String effectiveCourseName = courseName != null ? courseName : "Unknown course";
 
-        if (courseId != null && !resourceService.areCourseResourcesIndexed(courseId)) {
-            long indexingCount = resourceService.getIndexingCount(courseId);
+        if (indexingCount > 0) {
             log.warn("{} resources still being indexed for course {}", indexingCount, courseId);
         }
 
@@ -101,57 +228,19 @@ public class GeminiService {
             Course name: %s
         """.formatted(effectiveCourseName);
 
-        String forumContext = "";
-        String duplicateNotice = "";
-
+        ForumSection forum = ForumSection.EMPTY;
         if (courseId != null) {
             try {
-                List<Post> similar = postService.findSimilarPosts(courseId, userQuestion, 10);
-                List<Post> recentAdmin = postService.findRecentInstructorPosts(courseId, 5);
-
-                // Check for very similar questions (potential duplicates)
-                if (!similar.isEmpty()) {
-                    Post mostSimilar = similar.get(0);
-                    if (mostSimilar.getReplies() != null && !mostSimilar.getReplies().isEmpty()) {
-                        duplicateNotice = String.format(
-                                "\n\n**NOTE:** A very similar question was previously asked in Post #%d: \"%s\"\n\n",
-                                mostSimilar.getId(),
-                                mostSimilar.getTitle()
-                        );
-                    }
-                }
-
-                Set<Post> uniqueContext = new LinkedHashSet<>();
-                uniqueContext.addAll(recentAdmin);
-                uniqueContext.addAll(similar);
-
-                log.info("RAG Context for {}: merged {} semantic and {} admin posts",
-                        logTag, similar.size(), recentAdmin.size());
-
-
-                for (Post p : uniqueContext) {
-                    boolean hasInstructorReply = p.getReplies() != null &&
-                            p.getReplies().stream().anyMatch(Replies::isFromInstructor);
-                    log.debug("Including post #{} '{}' - has instructor reply: {}",
-                            p.getId(), p.getTitle(), hasInstructorReply);
-                }
-
-                if (!uniqueContext.isEmpty()) {
-                    StringBuilder sb = new StringBuilder();
-                    sb.append("=== RELEVANT FORUM CONTEXT ===\n");
-                    sb.append("Posts marked [INSTRUCTOR ANNOUNCEMENT] are official course information.\n");
-                    sb.append("Posts marked [INSTRUCTOR ANSWERED] contain authoritative answers.\n\n");
-
-                    for (Post p : uniqueContext) {
-                        sb.append(postService.buildThreadDocument(p))
-                                .append("\n========================================\n\n");
-                    }
-                    forumContext = sb.toString();
-                }
+                // Forum lookups run in their own short read-only transaction, so no
+                // database connection is held while waiting on Gemini below
+                forum = readOnlyTx.execute(status -> loadForumSection(courseId, userQuestion, logTag));
             } catch (Exception e) {
                 log.warn("Failed to build forum context", e);
             }
         }
+        String forumContext = forum.context();
+        String forumThreads = forum.threads();
+        String duplicateNotice = forum.duplicateNotice();
 
         Content systemInstruction = Content.fromParts(
                 Part.fromText(systemPrompt)
@@ -206,62 +295,107 @@ public class GeminiService {
                     .build();
         }
 
+        GenerateContentResponse response;
+        try {
+            response = callGemini(userContent, config, logTag);
+        } catch (CircuitBreaker.OpenException e) {
+            if (!allowFallback) throw e;
+            return fallbackAnswer(duplicateNotice, forumThreads, logTag);
+        }
+
+        response.candidates().ifPresentOrElse(candidates -> {
+            if (candidates.isEmpty()) {
+                log.warn("No candidates in Gemini response for {}", logTag);
+                return;
+            }
+            var first = candidates.get(0);
+            first.groundingMetadata().ifPresentOrElse(
+                    gm -> log.info("Gemini grounding metadata for {}: {}", logTag, gm),
+                    () -> log.warn("No grounding metadata for {} – probably no File Search used.", logTag)
+            );
+        }, () -> log.warn("No candidates at all in Gemini response for {}", logTag));
+
+        String answer = response.text();
+
+        List<String> docNames = (courseId != null)
+                ? extractFileDocNames(response, courseId, logTag)
+                : List.of();
+
+        if (docNames.isEmpty()) {
+            log.info("No grounded file docs for {}", logTag);
+        }
+
+        String cleaned = SOURCES_SUFFIX
+                .matcher(answer)
+                .replaceFirst("")
+                .trim();
+
+        StringBuilder sources = new StringBuilder();
+        sources.append("\n\nSources:\n");
+
+        boolean hasAnySource = false;
+
+        if (!docNames.isEmpty()) {
+            for (String name : docNames) {
+                sources.append("- ").append(name).append("\n");
+            }
+            hasAnySource = true;
+        }
+
+        if (forumContext != null && !forumContext.isBlank()) {
+            sources.append("- Forum: course forum threads\n");
+            hasAnySource = true;
+        }
+
+        if (!hasAnySource) {
+            sources.append("- General knowledge (no specific course materials were referenced)\n");
+        }
+
+        return duplicateNotice + cleaned + sources;
+    }
+
+    private record ForumSection(String context, String threads, String duplicateNotice) {
+        static final ForumSection EMPTY = new ForumSection("", "", "");
+    }
+
+    private ForumSection loadForumSection(Long courseId, String userQuestion, String logTag) {
+        List<Post> similar = postService.findSimilarPosts(courseId, userQuestion, 10);
+        List<Post> recentAdmin = postService.findRecentInstructorPosts(courseId, 5);
+
+        // Check for very similar questions (potential duplicates)
+        String duplicateNotice = "";
+        if (!similar.isEmpty()) {
+            Post mostSimilar = similar.get(0);
+            if (!mostSimilar.getPublishedReplies().isEmpty()) {
+                duplicateNotice = String.format(
+                        "\n\n**NOTE:** A very similar question was previously asked in Post #%d: \"%s\"\n\n",
+                        mostSimilar.getId(),
+                        mostSimilar.getTitle()
+                );
+            }
+        }
+
+        ForumContextBuilder.ForumContext context =
+                forumContextBuilder.build(userQuestion, recentAdmin, similar);
+
+        log.info("RAG Context for {}: {} semantic and {} admin posts, {} of {} threads used (~{} tokens)",
+                logTag, similar.size(), recentAdmin.size(),
+                context.threadCount(), context.candidateCount(), context.tokensUsed());
+
+        return new ForumSection(context.text(), context.threads(), duplicateNotice);
+    }
+
+    /**
+     * Calls Gemini through the circuit breaker, retrying server errors.
+     * Once the breaker opens, remaining attempts fail fast with
+     * {@link CircuitBreaker.OpenException} instead of waiting on the provider.
+     */
+    private GenerateContentResponse callGemini(Content userContent, GenerateContentConfig config, String logTag) {
         int attempt = 0;
         while (true) {
             attempt++;
             try {
-                GenerateContentResponse response =
-                        client.models.generateContent(MODEL_NAME, userContent, config);
-
-                response.candidates().ifPresentOrElse(candidates -> {
-                    if (candidates.isEmpty()) {
-                        log.warn("No candidates in Gemini response for {}", logTag);
-                        return;
-                    }
-                    var first = candidates.get(0);
-                    first.groundingMetadata().ifPresentOrElse(
-                            gm -> log.info("Gemini grounding metadata for {}: {}", logTag, gm),
-                            () -> log.warn("No grounding metadata for {} – probably no File Search used.", logTag)
-                    );
-                }, () -> log.warn("No candidates at all in Gemini response for {}", logTag));
-
-                String answer = response.text();
-
-                List<String> docNames = (courseId != null)
-                        ? extractFileDocNames(response, courseId, logTag)
-                        : List.of();
-
-                if (docNames.isEmpty()) {
-                    log.info("No grounded file docs for {}", logTag);
-                }
-
-                String cleaned = Pattern.compile("(?s)Sources:.*$")
-                        .matcher(answer)
-                        .replaceFirst("")
-                        .trim();
-
-                StringBuilder sources = new StringBuilder();
-                sources.append("\n\nSources:\n");
-
-                boolean hasAnySource = false;
-                
-                if (!docNames.isEmpty()) {
-                    for (String name : docNames) {
-                        sources.append("- ").append(name).append("\n");
-                    }
-                    hasAnySource = true;
-                }
-
-                if (forumContext != null && !forumContext.isBlank()) {
-                    sources.append("- Forum: course forum threads\n");
-                    hasAnySource = true;
-                }
-                
-                if (!hasAnySource) {
-                    sources.append("- General knowledge (no specific course materials were referenced)\n");
-                }
-
-                return duplicateNotice + cleaned + sources;
+                return geminiBreaker.execute(() -> client.models.generateContent(MODEL_NAME, userContent, config));
 
             } catch (ServerException e) {
                 log.warn("Gemini ServerException on attempt {} for {}: {}",
@@ -276,6 +410,28 @@ public class GeminiService {
         }
     }
 
+    /**
+     * Answer used while Gemini is unavailable: the forum threads already
+     * selected for the prompt (served from the thread document cache), or a
+     * short notice when there are none.
+     */
+    private String fallbackAnswer(String duplicateNotice, String forumThreads, String logTag) {
+        if (forumThreads != null && !forumThreads.isBlank()) {
+            forumFallbacks.increment();
+            log.warn("Gemini unavailable, answering {} from forum threads only", logTag);
+            return duplicateNotice + FORUM_FALLBACK_INTRO + forumThreads.trim()
+                    + "\n\nSources:\n- Forum: course forum threads\n";
+        }
+        unavailableFallbacks.increment();
+        log.warn("Gemini unavailable and no forum threads for {}", logTag);
+        return duplicateNotice + UNAVAILABLE_MESSAGE;
+    }
+
+    /**
+     * AI reply for a forum post.
+     *
+     * @throws CircuitBreaker.OpenException while Gemini is unavailable
+     */
     public String generateReply(Post post) {
         Long courseId = post.getCourse().getId();
         String courseName = post.getCourse().getName();
@@ -283,8 +439,10 @@ public class GeminiService {
 
         String question = post.getBody() != null ? post.getBody() : "";
         String logTag = "post " + post.getId();
+        long indexingCount = resourceService.getIndexingCount(courseId);
 
-        return answerForCourse(courseId, courseName, storeName, question, logTag);
+        // No fallback here: a placeholder must not be saved as the post's AI reply
+        return generateAnswer(courseId, courseName, storeName, question, indexingCount, logTag, false);
     }
 
     private void sleepQuietly(long millis) {
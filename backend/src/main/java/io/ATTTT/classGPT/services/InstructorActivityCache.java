@@ -0,0 +1,64 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.models.Post;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-course list of the most recent posts with instructor involvement
+ * (instructor-authored, or with an instructor reply), newest first.
+ * Loaded once per course from the database and then kept current as
+ * instructors post and reply.
+ */
+@Component
+public class InstructorActivityCache {
+
+    static final int DEPTH = 20;
+
+    private record Activity(Long postId, LocalDateTime createdAt) {
+    }
+
+    private static final Comparator<Activity> NEWEST_FIRST =
+            Comparator.comparing(Activity::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Activity::postId, Comparator.reverseOrder());
+
+    private final Map<Long, List<Activity>> byCourse = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of up to {@link #DEPTH} recent instructor posts. On a miss the
+     * loader is called and its result cached.
+     */
+    public List<Long> recentPostIds(Long courseId, Supplier<List<Post>> loader) {
+        List<Activity> activity = byCourse.computeIfAbsent(courseId, id -> loader.get().stream()
+                .map(p -> new Activity(p.getId(), p.getCreatedAt()))
+                .sorted(NEWEST_FIRST)
+                .limit(DEPTH)
+                .toList());
+        return activity.stream().map(Activity::postId).toList();
+    }
+
+    public void recordActivity(Post post) {
+        if (post.getId() == null || post.getCourse() == null) return;
+
+        byCourse.computeIfPresent(post.getCourse().getId(), (id, current) -> {
+            if (current.stream().anyMatch(a -> a.postId().equals(post.getId()))) {
+                return current;
+            }
+            List<Activity> updated = new ArrayList<>(current);
+            updated.add(new Activity(post.getId(), post.getCreatedAt()));
+            updated.sort(NEWEST_FIRST);
+            return List.copyOf(updated.subList(0, Math.min(DEPTH, updated.size())));
+        });
+    }
+
+    public void evictCourse(Long courseId) {
+        byCourse.remove(courseId);
+    }
+}
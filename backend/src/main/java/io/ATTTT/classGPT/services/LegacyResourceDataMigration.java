@@ -0,0 +1,172 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.util.CompressedText;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Flyway V5. Databases built by auto-DDL before resource_blob and
+ * resource_text_chunk existed still keep the file bytes in resource.data and
+ * the extracted text in resource.extracted_text. This copies the bytes into
+ * resource_blob, splits the text into compressed chunks the way uploads do,
+ * and then drops both legacy columns. On a database built by V1 the columns
+ * are absent and nothing happens.
+ */
+@Component
+public class LegacyResourceDataMigration implements JavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyResourceDataMigration.class);
+
+    // resource_text_chunk_seq is pooled-lo: one nextval covers this many ids
+    private static final int ID_BLOCK = 50;
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("5");
+    }
+
+    @Override
+    public String getDescription() {
+        return "move legacy resource data";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        String dataType = columnType(connection, "resource", "data");
+        String textType = columnType(connection, "resource", "extracted_text");
+
+        if (dataType != null) {
+            int moved = moveData(connection, dataType);
+            log.info("Moved {} legacy resource files into resource_blob", moved);
+        }
+        if (textType != null) {
+            int chunked = chunkText(connection, textType);
+            log.info("Re-chunked the extracted text of {} legacy resources", chunked);
+        }
+
+        // Last, because H2 commits DDL and a failure above must leave the data in place
+        try (Statement st = connection.createStatement()) {
+            if (dataType != null) {
+                st.execute("ALTER TABLE resource DROP COLUMN data");
+            }
+            if (textType != null) {
+                if (isOid(textType)) {
+                    // Dropping an oid column leaves its large objects behind
+                    st.execute("SELECT lo_unlink(extracted_text) FROM resource WHERE extracted_text IS NOT NULL");
+                }
+                st.execute("ALTER TABLE resource DROP COLUMN extracted_text");
+            }
+        }
+    }
+
+    private int moveData(Connection connection, String dataType) throws SQLException {
+        // An oid is just a reference, so the large object changes owner as is
+        String value = isOid(dataType) || !isOid(columnType(connection, "resource_blob", "data"))
+                ? "r.data"
+                : "lo_from_bytea(0, r.data)";
+        try (Statement st = connection.createStatement()) {
+            return st.executeUpdate("""
+                    INSERT INTO resource_blob (resource_id, data)
+                    SELECT r.id, %s FROM resource r
+                    WHERE r.data IS NOT NULL
+                      AND NOT EXISTS (SELECT 1 FROM resource_blob b WHERE b.resource_id = r.id)
+                    """.formatted(value));
+        }
+    }
+
+    private int chunkText(Connection connection, String textType) throws SQLException {
+        boolean postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+        String text = isOid(textType) ? "convert_from(lo_get(r.extracted_text), 'UTF8')" : "r.extracted_text";
+        String compressed = isOid(columnType(connection, "resource_text_chunk", "compressed"))
+                ? "lo_from_bytea(0, ?)"
+                : "?";
+        String nextId = postgres
+                ? "SELECT nextval('resource_text_chunk_seq')"
+                : "SELECT NEXT VALUE FOR resource_text_chunk_seq";
+
+        int resources = 0;
+        long id = 0;
+        int leftInBlock = 0;
+        try (PreparedStatement select = connection.prepareStatement("""
+                     SELECT r.id, %s FROM resource r
+                     WHERE r.extracted_text IS NOT NULL
+                       AND NOT EXISTS (SELECT 1 FROM resource_text_chunk c WHERE c.resource_id = r.id)
+                     ORDER BY r.id
+                     """.formatted(text));
+             PreparedStatement insert = connection.prepareStatement("""
+                     INSERT INTO resource_text_chunk
+                         (id, resource_id, chunk_index, first_page, last_page, raw_length, compressed)
+                     VALUES (?, ?, ?, NULL, NULL, ?, %s)
+                     """.formatted(compressed));
+             PreparedStatement sequence = connection.prepareStatement(nextId)) {
+            select.setFetchSize(1);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    long resourceId = rs.getLong(1);
+                    String extracted = rs.getString(2);
+                    if (extracted == null || extracted.isBlank()) continue;
+
+                    int index = 0;
+                    for (ResourceService.TextSegment segment : ResourceService.splitPlainText(extracted)) {
+                        if (segment.text().isBlank()) continue;
+                        if (leftInBlock == 0) {
+                            try (ResultSet next = sequence.executeQuery()) {
+                                next.next();
+                                id = next.getLong(1);
+                            }
+                            leftInBlock = ID_BLOCK;
+                        }
+                        insert.setLong(1, id++);
+                        leftInBlock--;
+                        insert.setLong(2, resourceId);
+                        insert.setInt(3, index++);
+                        insert.setInt(4, segment.text().length());
+                        insert.setBytes(5, CompressedText.compress(segment.text()));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    resources++;
+                }
+            }
+        }
+        return resources;
+    }
+
+    private static boolean isOid(String type) {
+        return "oid".equalsIgnoreCase(type);
+    }
+
+    // The column's type name, or null when the column does not exist
+    private static String columnType(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        boolean upper = meta.storesUpperCaseIdentifiers();
+        String t = upper ? table.toUpperCase(Locale.ROOT) : table;
+        String c = upper ? column.toUpperCase(Locale.ROOT) : column;
+        try (ResultSet rs = meta.getColumns(null, connection.getSchema(), t, c)) {
+            return rs.next() ? rs.getString("TYPE_NAME") : null;
+        }
+    }
+}
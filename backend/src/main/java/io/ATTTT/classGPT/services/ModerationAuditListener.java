@@ -0,0 +1,37 @@
+package io.ATTTT.classGPT.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+
+/**
+ * Audit trail of bulk moderation. Runs once the moderation has committed,
+ * off the request thread, so a rolled-back batch is never reported and a
+ * slow log appender never holds up the instructor.
+ */
+@Component
+public class ModerationAuditListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ModerationAuditListener.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public ModerationAuditListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Async("notificationExecutor")
+    @TransactionalEventListener
+    public void onRepliesModerated(RepliesModeratedEvent event) {
+        meterRegistry.counter("classgpt.moderation.replies", "action", event.action().name().toLowerCase(Locale.ROOT))
+                .increment(event.updated());
+        log.info("Moderator {} {} {} of {} replies at {}",
+                event.moderatorId(), event.action(), event.updated(), event.replyIds().size(), event.at());
+        log.debug("{} reply ids: {}", event.action(), event.replyIds());
+    }
+}
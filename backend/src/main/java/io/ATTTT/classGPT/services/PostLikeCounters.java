@@ -0,0 +1,61 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.repositories.PostRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind like counts. Toggles merge into a per-post pending delta
+ * and a scheduled flush applies the net change to {@code post.up_votes}
+ * with one relative UPDATE per post, so likes on a hot post no longer
+ * queue on that post's row lock. Readers add the pending delta to the
+ * stored count. A flush takes each entry out of the map, so the map only
+ * holds posts liked since the last flush.
+ */
+@Component
+public class PostLikeCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(PostLikeCounters.class);
+
+    private final PostRepository postRepository;
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    public PostLikeCounters(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    public void add(Long postId, long delta) {
+        // Atomic per post; a like and its unlike cancel out and drop the entry
+        pending.merge(postId, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    public long pendingDelta(Long postId) {
+        return pending.getOrDefault(postId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${classgpt.likes.flush-interval:5s}")
+    public void flush() {
+        for (Long postId : pending.keySet()) {
+            Long delta = pending.remove(postId);
+            if (delta == null || delta == 0) continue;
+            try {
+                postRepository.addUpVotes(postId, delta);
+            } catch (RuntimeException e) {
+                // Keep the delta for the next flush
+                add(postId, delta);
+                log.warn("Failed to flush {} likes for post {}: {}", delta, postId, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
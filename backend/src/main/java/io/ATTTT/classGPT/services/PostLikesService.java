@@ -1,4 +1,3 @@
-
 package io.ATTTT.classGPT.services;
 
 import io.ATTTT.classGPT.models.Account;
@@ -7,8 +6,8 @@ import io.ATTTT.classGPT.models.PostLikes;
 import io.ATTTT.classGPT.repositories.PostLikesRepository;
 import io.ATTTT.classGPT.repositories.PostRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -16,38 +15,49 @@ public class PostLikesService {
 
     private final PostLikesRepository postLikesRepository;
     private final PostRepository postRepository;
-
-    @Transactional
+    private final PostLikeCounters likeCounters;
+
+    /**
+     * Toggles the account's like without touching the post row: the like row
+     * is deleted or inserted on its own, and the count change goes through
+     * {@link PostLikeCounters}. The unique (post_id, account_id) constraint
+     * makes a concurrent duplicate like fail instead of counting twice.
+     */
     public boolean toggleLike(Long postId, Account account) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Post not found"));
-
-        var existingLike = postLikesRepository.findByPostIdAndAccountId(postId, account.getId());
-
-        if (existingLike.isPresent()) {
-            postLikesRepository.delete(existingLike.get());
-            post.setUpVotes(Math.max(0, post.getUpVotes() - 1));
-            postRepository.save(post);
+        if (postLikesRepository.deleteByPostIdAndAccountId(postId, account.getId()) > 0) {
+            likeCounters.add(postId, -1);
             return false;
-        } else {
+        }
 
-            PostLikes like = new PostLikes();
-            like.setPost(post);
-            like.setAccount(account);
-            postLikesRepository.save(like);
+        Long courseId = postRepository.findCourseIdById(postId)
+                .orElseThrow(() -> new IllegalArgumentException("Post not found"));
 
-            post.setUpVotes(post.getUpVotes() + 1);
-            postRepository.save(post);
+        PostLikes like = new PostLikes();
+        like.setPost(postRepository.getReferenceById(postId));
+        like.setCourseId(courseId);
+        like.setAccount(account);
+        try {
+            postLikesRepository.saveAndFlush(like);
+        } catch (DataIntegrityViolationException e) {
+            // Another request from the same account liked it first
             return true;
         }
+        likeCounters.add(postId, 1);
+        return true;
     }
 
     public boolean hasUserLiked(Long postId, Long accountId) {
         return postLikesRepository.existsByPostIdAndAccountId(postId, accountId);
     }
 
-
     public long getLikeCount(Long postId) {
-        return postLikesRepository.countByPostId(postId);
+        return postRepository.findUpVotesById(postId).orElse(0) + likeCounters.pendingDelta(postId);
+    }
+
+    /**
+     * Stored count plus likes not yet flushed.
+     */
+    public int currentUpVotes(Post post) {
+        return (int) Math.max(0, post.getUpVotes() + likeCounters.pendingDelta(post.getId()));
     }
 }
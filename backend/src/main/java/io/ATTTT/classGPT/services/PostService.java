@@ -1,37 +1,59 @@
 package io.ATTTT.classGPT.services;
 
-import io.ATTTT.classGPT.models.Account;
 import io.ATTTT.classGPT.models.Post;
 import io.ATTTT.classGPT.models.Replies;
 import io.ATTTT.classGPT.repositories.PostRepository;
+import io.ATTTT.classGPT.services.ThreadDocumentCache.ThreadDocument;
+import io.ATTTT.classGPT.util.HtmlText;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PostService {
 
+    // Follows "[POST #id]" on a thread document's first line
+    private static final String INSTRUCTOR_ANSWERED = " [INSTRUCTOR ANSWERED]";
+
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private ThreadDocumentCache threadDocumentCache;
+
+    @Autowired
+    private InstructorActivityCache instructorActivityCache;
+
+    @Autowired
+    private CourseService courseService;
+
     public Optional<Post> getById(Long id){
         return postRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Post> getAll(){
         return postRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Post> getPostsForCourse(Long courseId) {
         return postRepository.findByCourseIdOrderByCreatedAtDesc(courseId);
     }
 
+    @Transactional
     public Post save(Post post){
         if (post.getId() == null) {
+            courseService.lockForWrite(post.getCourse().getId());
             post.setCreatedAt(LocalDateTime.now());
         }
         post.setModifiedAt(LocalDateTime.now());
@@ -40,6 +62,10 @@ public class PostService {
 
     public void delete(Post post) {
         postRepository.delete(post);
+        threadDocumentCache.evict(post.getId());
+        if (post.getCourse() != null) {
+            instructorActivityCache.evictCourse(post.getCourse().getId());
+        }
     }
 
     /**
@@ -48,7 +74,7 @@ public class PostService {
     public List<Post> findSimilarPosts(Long courseId, String query, int limit) {
         List<Post> all = postRepository.searchSimilar(courseId, query);
         return all.stream()
-                .filter(p -> p.getReplies() != null && !p.getReplies().isEmpty())
+                .filter(p -> !p.getPublishedReplies().isEmpty())
                 .limit(limit)
                 .toList();
     }
@@ -59,37 +85,52 @@ public class PostService {
      * - Posts that HAVE instructor replies (Q&A)
      */
     public List<Post> findRecentInstructorPosts(Long courseId, int limit) {
-        List<Post> recentPosts = postRepository.findByCourseIdOrderByCreatedAtDesc(courseId);
-
-        return recentPosts.stream()
-                .filter(post -> {
-                    Account author = post.getAccount();
+        if (limit > InstructorActivityCache.DEPTH) {
+            return postRepository.findRecentInstructorPosts(courseId, PageRequest.of(0, limit));
+        }
 
-                    if (author != null) {
-                        return author.hasRole("ROLE_ADMIN");
-                    }
+        List<Long> ids = instructorActivityCache.recentPostIds(courseId, () ->
+                postRepository.findRecentInstructorPosts(courseId, PageRequest.of(0, InstructorActivityCache.DEPTH)));
+        List<Long> wanted = ids.subList(0, Math.min(limit, ids.size()));
+        if (wanted.isEmpty()) {
+            return List.of();
+        }
 
-                    return post.getReplies() != null &&
-                            post.getReplies().stream()
-                                    .anyMatch(Replies::isFromInstructor);
-                })
-                .limit(limit)
+        Map<Long, Post> byId = postRepository.findAllById(wanted).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        return wanted.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
+    /**
+     * Called when an instructor posts, or replies to a post as an instructor.
+     */
+    public void recordInstructorActivity(Post post) {
+        instructorActivityCache.recordActivity(post);
+    }
+
 
-    public String buildThreadDocument(Post post) {
+    /**
+     * Thread document for RAG context. Served from {@link ThreadDocumentCache}
+     * and only re-rendered when the post or its replies have changed.
+     */
+    public ThreadDocument buildThreadDocument(Post post) {
+        return threadDocumentCache.get(post, this::renderThreadDocument);
+    }
+
+    private ThreadDocument renderThreadDocument(Post post) {
         StringBuilder sb = new StringBuilder();
 
         // Mark if this thread has instructor involvement
-        boolean hasInstructorReply = post.getReplies() != null &&
-                post.getReplies().stream()
-                        .anyMatch(Replies::isFromInstructor);
+        boolean hasInstructorReply = post.getPublishedReplies().stream()
+                .anyMatch(Replies::isFromInstructor);
 
         sb.append("[POST #").append(post.getId()).append("]");
 
         if (hasInstructorReply) {
-            sb.append(" [INSTRUCTOR ANSWERED]");
+            sb.append(INSTRUCTOR_ANSWERED);
         }
 
         sb.append("\n");
@@ -99,28 +140,21 @@ public class PostService {
                 .append("\n\n");
 
         sb.append("Question/Body:\n")
-                .append(stripHtml(post.getBody()))
+                .append(plainText(post.getBodyText(), post.getBody()))
                 .append("\n\n");
 
         // Get the best answer (prioritizing instructor replies)
-        String bestAnswer = pickBestAnswer(post);
+        Replies best = pickBestAnswer(post);
+        String bestAnswer = best != null ? plainText(best.getBodyText(), best.getBody()) : null;
         if (bestAnswer != null && !bestAnswer.isBlank()) {
             sb.append("Best answer");
 
-            // Find who gave the best answer
-            if (post.getReplies() != null) {
-                post.getReplies().stream()
-                        .filter(r -> stripHtml(r.getBody()).equals(stripHtml(bestAnswer)))
-                        .findFirst()
-                        .ifPresent(reply -> {
-                            if (reply.isFromInstructor()) {
-                                sb.append(" (FROM INSTRUCTOR)");
-                            }
-                        });
+            if (best.isFromInstructor()) {
+                sb.append(" (FROM INSTRUCTOR)");
             }
 
             sb.append(":\n")
-                    .append(stripHtml(bestAnswer))
+                    .append(bestAnswer)
                     .append("\n\n");
         } else {
             sb.append("Best answer:\n")
@@ -139,57 +173,51 @@ public class PostService {
                     .append("\n");
         }
 
-        return sb.toString();
+        return new ThreadDocument(sb.toString(), hasInstructorReply);
     }
 
 
-    private String pickBestAnswer(Post post) {
-        var replies = post.getReplies();
-        if (replies == null || replies.isEmpty()) return null;
-
-        // Priority 1: Endorsed instructor reply
-        var best = replies.stream()
-                .filter(Replies::isFromInstructor)
-                .filter(Replies::isEndorsed)
-                .findFirst();
-
-        // Priority 2: Any instructor reply (even if not endorsed)
-        if (best.isEmpty()) {
-            best = replies.stream()
-                    .filter(Replies::isFromInstructor)
-                    .findFirst();
-        }
-
-        // Priority 3: Endorsed student reply
-        if (best.isEmpty()) {
-            best = replies.stream()
-                    .filter(r -> !r.isFromInstructor())
-                    .filter(Replies::isEndorsed)
-                    .findFirst();
+    /**
+     * Single pass over the replies, keeping the first reply of the best rank:
+     * 1. endorsed instructor reply, 2. any instructor reply,
+     * 3. endorsed student reply, 4. non-LLM reply, 5. LLM reply.
+     */
+    private Replies pickBestAnswer(Post post) {
+        var replies = post.getPublishedReplies();
+        if (replies.isEmpty()) return null;
+
+        Replies best = null;
+        int bestRank = Integer.MAX_VALUE;
+        for (Replies r : replies) {
+            int rank = answerRank(r);
+            if (rank < bestRank) {
+                best = r;
+                bestRank = rank;
+                if (rank == 1) break;
+            }
         }
+        return best;
+    }
 
-        // Priority 4: Non-LLM generated reply
-        if (best.isEmpty()) {
-            best = replies.stream()
-                    .filter(r -> !r.isLlmGenerated())
-                    .findFirst();
+    private int answerRank(Replies r) {
+        if (r.isFromInstructor()) {
+            return r.isEndorsed() ? 1 : 2;
         }
-
-        // Priority 5: Even LLM-generated is better than nothing
-        if (best.isEmpty()) {
-            best = replies.stream()
-                    .filter(Replies::isLlmGenerated)
-                    .findFirst();
+        if (r.isEndorsed()) {
+            return 3;
         }
-
-        return best.map(Replies::getBody).orElse(null);
+        return r.isLlmGenerated() ? 5 : 4;
     }
 
     private String nullSafe(String s) {
         return s == null ? "" : s;
     }
 
-    private String stripHtml(String html) {
-        return html == null ? "" : html.replaceAll("<[^>]+>", "");
+    /**
+     * Uses the plain text stored at write time; rows written before that
+     * column existed are converted on the fly.
+     */
+    private String plainText(String stored, String html) {
+        return stored != null ? stored : HtmlText.toPlainText(html);
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package io.ATTTT.classGPT.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published after an instructor reviews, endorses or unflags a batch of
+ * replies. Listeners (see {@link ModerationAuditListener}) use
+ * {@code @TransactionalEventListener} with {@code @Async("notificationExecutor")}
+ * so they run only after the change commits and off the request thread.
+ * {@code updated} is how many rows the batch changed; requested ids that
+ * matched no reply are not counted.
+ */
+public record RepliesModeratedEvent(
+        Action action,
+        List<Long> replyIds,
+        int updated,
+        Long moderatorId,
+        LocalDateTime at
+) {
+    public enum Action { REVIEWED, ENDORSED, UNFLAGGED }
+}
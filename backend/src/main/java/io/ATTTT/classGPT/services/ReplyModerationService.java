@@ -0,0 +1,125 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Post;
+import io.ATTTT.classGPT.models.Replies;
+import io.ATTTT.classGPT.repositories.RepliesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk moderation of replies. Each action is a set-based UPDATE over the
+ * given ids in one transaction, rather than a load and save per reply.
+ * Very long id lists are split into chunks to keep the IN lists bounded.
+ */
+@Service
+public class ReplyModerationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplyModerationService.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private final RepliesRepository repliesRepository;
+    private final ApplicationEventPublisher events;
+
+    public ReplyModerationService(RepliesRepository repliesRepository, ApplicationEventPublisher events) {
+        this.repliesRepository = repliesRepository;
+        this.events = events;
+    }
+
+    @Transactional
+    public int markReviewed(List<Long> replyIds, Account moderator, String feedback) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (List<Long> chunk : chunks(replyIds)) {
+            updated += repliesRepository.markReviewed(chunk, moderator, feedback, now);
+        }
+        return published(RepliesModeratedEvent.Action.REVIEWED, replyIds, moderator, now, updated);
+    }
+
+    /**
+     * Endorses every reply. As with the single endorse endpoint, endorsed AI
+     * replies also count as reviewed and lose any flags.
+     */
+    @Transactional
+    public int endorse(List<Long> replyIds, Account moderator) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (List<Long> chunk : chunks(replyIds)) {
+            updated += repliesRepository.markEndorsed(chunk, now);
+            repliesRepository.markLlmRepliesReviewedAndUnflagged(chunk, moderator, now);
+        }
+        return published(RepliesModeratedEvent.Action.ENDORSED, replyIds, moderator, now, updated);
+    }
+
+    @Transactional
+    public int unflag(List<Long> replyIds, Account moderator) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (List<Long> chunk : chunks(replyIds)) {
+            updated += repliesRepository.clearFlags(chunk, now);
+        }
+        return published(RepliesModeratedEvent.Action.UNFLAGGED, replyIds, moderator, now, updated);
+    }
+
+    /**
+     * Records an AI chat answer a student flagged for the instructor, plus
+     * the student's note as a child reply. Sequence ids let both inserts be
+     * sent as one batch in a single transaction.
+     */
+    @Transactional
+    public Replies flagChatReply(Post post, String aiReplyText, String studentNote) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Replies aiReply = new Replies();
+        aiReply.setPost(post);
+        aiReply.setBody(aiReplyText);
+        aiReply.setLlmGenerated(true);
+        aiReply.setFromInstructor(false);
+        aiReply.setFlagged(true);
+        aiReply.setParentReplyId(null);
+        aiReply.setModifiedAt(now);
+        repliesRepository.save(aiReply);
+
+        if (studentNote != null && !studentNote.isBlank()) {
+            Replies note = new Replies();
+            note.setPost(post);
+            note.setBody(studentNote);
+            note.setLlmGenerated(false);
+            note.setFromInstructor(false);
+            note.setFlagged(false);
+            note.setParentReplyId(aiReply.getId());
+            note.setModifiedAt(now);
+            repliesRepository.save(note);
+        }
+        return aiReply;
+    }
+
+    private int published(RepliesModeratedEvent.Action action,
+                          List<Long> replyIds,
+                          Account moderator,
+                          LocalDateTime at,
+                          int updated) {
+        log.debug("{} {} of {} replies by {}", action, updated, replyIds.size(), moderator.getEmail());
+        // ModerationAuditListener records it once the transaction commits
+        if (updated > 0) {
+            events.publishEvent(new RepliesModeratedEvent(action, List.copyOf(replyIds), updated,
+                    moderator.getId(), at));
+        }
+        return updated;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<Long> distinct = ids.stream().distinct().toList();
+        int count = (distinct.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, count)
+                .mapToObj(i -> distinct.subList(i * CHUNK_SIZE, Math.min(distinct.size(), (i + 1) * CHUNK_SIZE)))
+                .toList();
+    }
+}
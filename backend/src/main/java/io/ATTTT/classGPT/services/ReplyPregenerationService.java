@@ -0,0 +1,167 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Post;
+import io.ATTTT.classGPT.models.Replies;
+import io.ATTTT.classGPT.repositories.RepliesRepository;
+import io.ATTTT.classGPT.util.CircuitBreaker;
+import io.ATTTT.classGPT.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Drafts the AI answer for a new question in the background, so it is
+ * already there when someone opens the post. Drafts are saved as LLM
+ * replies flagged {@code pregenerated} and handed out by the LLMReply
+ * endpoint instead of calling Gemini again.
+ * <p>
+ * Off unless {@code classgpt.llm.pregenerate.enabled=true}. Drafting is
+ * low priority: it is skipped rather than queued when the rate limit is
+ * used up, when the LLM executor is busy with interactive requests, or
+ * while the Gemini circuit is not closed.
+ */
+@Service
+public class ReplyPregenerationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplyPregenerationService.class);
+
+    private final boolean enabled;
+    private final GeminiService geminiService;
+    private final PostService postService;
+    private final RepliesRepository repliesRepository;
+    private final ThreadPoolExecutor llmExecutor;
+    private final CircuitBreaker geminiBreaker;
+    private final TokenBucket rateLimit;
+    private final Semaphore drafting;
+    private final MeterRegistry meterRegistry;
+    private final Counter drafted;
+
+    public ReplyPregenerationService(@Value("${classgpt.llm.pregenerate.enabled:false}") boolean enabled,
+                                     @Value("${classgpt.llm.pregenerate.per-minute:20}") int perMinute,
+                                     @Value("${classgpt.llm.pregenerate.max-concurrent:2}") int maxConcurrent,
+                                     GeminiService geminiService,
+                                     PostService postService,
+                                     RepliesRepository repliesRepository,
+                                     @Qualifier("llmExecutor") ThreadPoolExecutor llmExecutor,
+                                     @Qualifier("geminiCircuitBreaker") CircuitBreaker geminiBreaker,
+                                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.geminiService = geminiService;
+        this.postService = postService;
+        this.repliesRepository = repliesRepository;
+        this.llmExecutor = llmExecutor;
+        this.geminiBreaker = geminiBreaker;
+        this.rateLimit = new TokenBucket(perMinute, Duration.ofMinutes(1));
+        this.drafting = new Semaphore(maxConcurrent);
+        this.meterRegistry = meterRegistry;
+        this.drafted = Counter.builder("classgpt.llm.pregenerated")
+                .description("AI replies drafted in the background for new questions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called after a post is saved. Instructor posts are announcements, not
+     * questions, and are never drafted.
+     */
+    public void onPostCreated(Post post, Account author) {
+        if (!enabled || author.hasRole("ROLE_ADMIN")) return;
+
+        if (geminiBreaker.state() != CircuitBreaker.State.CLOSED) {
+            skipped("circuit");
+            return;
+        }
+        if (!llmExecutor.getQueue().isEmpty()
+                || llmExecutor.getActiveCount() >= llmExecutor.getMaximumPoolSize() / 2) {
+            skipped("busy");
+            return;
+        }
+        if (!drafting.tryAcquire()) {
+            skipped("busy");
+            return;
+        }
+        if (!rateLimit.tryAcquire()) {
+            drafting.release();
+            skipped("rate");
+            return;
+        }
+
+        Long postId = post.getId();
+        try {
+            llmExecutor.execute(() -> {
+                try {
+                    draft(postId);
+                } finally {
+                    drafting.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            drafting.release();
+            skipped("busy");
+        }
+    }
+
+    /**
+     * Hands out the drafted reply for a post, if there is one. It then stops
+     * being a draft, so a later request generates a fresh answer as before.
+     */
+    public Optional<Replies> claimDraft(Long postId) {
+        return repliesRepository.findPregeneratedByPostId(postId, Limit.of(1)).stream()
+                .findFirst()
+                .filter(reply -> repliesRepository.claimPregenerated(reply.getId(), LocalDateTime.now()) == 1)
+                .flatMap(reply -> repliesRepository.findById(reply.getId()));
+    }
+
+    private void draft(Long postId) {
+        Optional<Post> found = postService.getById(postId);
+        if (found.isEmpty()) return;
+        Post post = found.get();
+
+        String body;
+        try {
+            body = geminiService.generateReply(post);
+        } catch (CircuitBreaker.OpenException e) {
+            skipped("circuit");
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Could not draft an AI reply for post {}: {}", postId, e.getMessage());
+            return;
+        }
+
+        // Someone asked for an AI reply while this one was being generated
+        if (repliesRepository.existsLlmReplyByPostId(postId)) {
+            skipped("answered");
+            return;
+        }
+
+        Replies reply = new Replies();
+        reply.setBody(body);
+        reply.setPost(post);
+        reply.setAuthor(null);
+        reply.setFromInstructor(false);
+        reply.setLlmGenerated(true);
+        reply.setPregenerated(true);
+        reply.setParentReplyId(null);
+        reply.setReviewed(false);
+
+        repliesRepository.save(reply);
+        drafted.increment();
+        log.info("Drafted AI reply for post {}", postId);
+    }
+
+    private void skipped(String reason) {
+        meterRegistry.counter("classgpt.llm.pregenerate.skipped", "reason", reason).increment();
+    }
+}
@@ -0,0 +1,59 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.repositories.ResourceRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-course counter of resources that are not yet indexed in File Search.
+ * Each course is seeded once from a count query; after that the upload and
+ * indexing pipeline keeps it current, so readiness checks are a map lookup.
+ */
+@Component
+public class ResourceIndexingTracker {
+
+    private final ResourceRepository resourceRepository;
+    private final Map<Long, AtomicLong> pendingByCourse = new ConcurrentHashMap<>();
+
+    public ResourceIndexingTracker(ResourceRepository resourceRepository) {
+        this.resourceRepository = resourceRepository;
+    }
+
+    public long pendingCount(Long courseId) {
+        return counter(courseId).get();
+    }
+
+    public boolean isReady(Long courseId) {
+        return pendingCount(courseId) == 0;
+    }
+
+    /**
+     * Called after a new, not-yet-indexed resource has been saved. Courses that
+     * were never seeded are left alone: their first read counts the new row.
+     */
+    public void onResourceAdded(Long courseId) {
+        pendingByCourse.computeIfPresent(courseId, (id, pending) -> {
+            pending.incrementAndGet();
+            return pending;
+        });
+    }
+
+    /**
+     * Called when a resource leaves the pending set, either because indexing
+     * finished or because an unindexed resource was deleted.
+     */
+    public void onResourceSettled(Long courseId) {
+        pendingByCourse.computeIfPresent(courseId, (id, pending) -> {
+            pending.updateAndGet(v -> Math.max(0, v - 1));
+            return pending;
+        });
+    }
+
+    private AtomicLong counter(Long courseId) {
+        return pendingByCourse.computeIfAbsent(courseId,
+                id -> new AtomicLong(resourceRepository.countUnindexedByCourseId(id)));
+    }
+}
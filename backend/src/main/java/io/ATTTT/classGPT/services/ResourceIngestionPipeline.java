@@ -0,0 +1,216 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.dto.BulkUploadResult;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Course;
+import io.ATTTT.classGPT.models.Resource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Staged ingestion for bulk resource uploads. Each file is read and has its
+ * text extracted on the ingestion executor, goes through a batching database
+ * stage, and is then handed to the indexing executor for File Search. Every
+ * stage is bounded, so a slow stage applies backpressure to the one before
+ * it instead of letting work pile up, and total time tracks the slowest stage.
+ */
+@Service
+public class ResourceIngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceIngestionPipeline.class);
+    private static final int PERSIST_BATCH_SIZE = 20;
+    // Upper bound on how long a request waits for one file, so a stuck stage
+    // fails the upload instead of holding the request thread forever
+    private static final Duration FILE_TIMEOUT = Duration.ofMinutes(5);
+
+    private final ResourceService resourceService;
+
+    private final Executor ingestionStage;
+    private final BlockingQueue<PendingPersist> persistQueue = new ArrayBlockingQueue<>(64);
+    private final Thread persistWorker;
+    private volatile boolean stopped;
+
+    public ResourceIngestionPipeline(ResourceService resourceService,
+                                     @Qualifier("ingestionExecutor") Executor ingestionExecutor) {
+        this.resourceService = resourceService;
+        this.ingestionStage = ingestionExecutor;
+
+        this.persistWorker = Thread.ofPlatform()
+                .name("ingest-persist")
+                .daemon(true)
+                .start(this::runPersistStage);
+    }
+
+    private record PendingPersist(Account uploader,
+                                  Course course,
+                                  ResourceService.PreparedUpload upload,
+                                  CompletableFuture<Resource> result) {
+    }
+
+    private record BatchKey(Long uploaderId, Long courseId) {
+    }
+
+    /**
+     * Runs every file through the pipeline and waits until each one is either
+     * stored or has failed. File Search indexing continues after this returns.
+     */
+    public List<BulkUploadResult> ingest(Account uploader, Course course, List<MultipartFile> files) {
+        // Null while File Search is unavailable; indexResource then queues each file
+        String storeName = resourceService.storeForIndexing(course);
+
+        List<CompletableFuture<BulkUploadResult>> results = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            String filename = file.getOriginalFilename();
+
+            CompletableFuture<BulkUploadResult> result = CompletableFuture
+                    .supplyAsync(() -> readBytes(file), ingestionStage)
+                    .thenApplyAsync(bytes -> resourceService.prepare(null, filename, file.getContentType(), bytes),
+                            ingestionStage)
+                    .thenCompose(upload -> enqueuePersist(uploader, course, upload))
+                    .thenApply(resource -> {
+                        resourceService.scheduleIndexing(resource, storeName);
+                        return BulkUploadResult.indexing(filename, resource.getId());
+                    })
+                    .orTimeout(FILE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                    .exceptionally(ex -> {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                                ? ex.getCause()
+                                : ex;
+                        String message = cause instanceof TimeoutException
+                                ? "Timed out after " + FILE_TIMEOUT.toMinutes() + " minutes"
+                                : cause.getMessage();
+                        log.warn("Bulk ingest failed for {} in course {}: {}",
+                                filename, course.getId(), message);
+                        return BulkUploadResult.failed(filename, message);
+                    });
+
+            results.add(result);
+        }
+
+        return results.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    private byte[] readBytes(MultipartFile file) {
+        try {
+            return file.getBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletableFuture<Resource> enqueuePersist(Account uploader,
+                                                      Course course,
+                                                      ResourceService.PreparedUpload upload) {
+        CompletableFuture<Resource> result = new CompletableFuture<>();
+        if (stopped) {
+            result.completeExceptionally(new IllegalStateException("Ingestion is shutting down"));
+            return result;
+        }
+        try {
+            persistQueue.put(new PendingPersist(uploader, course, upload, result));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        }
+        // Raced with shutdown after the worker's last drain
+        if (stopped) {
+            failQueued();
+        }
+        return result;
+    }
+
+    private void runPersistStage() {
+        List<PendingPersist> batch = new ArrayList<>(PERSIST_BATCH_SIZE);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(persistQueue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                persistQueue.drainTo(batch, PERSIST_BATCH_SIZE - 1);
+                try {
+                    persistBatch(batch);
+                } catch (Throwable t) {
+                    // Keep the stage alive; only this batch's uploads fail
+                    log.error("Persist stage failed on a batch of {} resources", batch.size(), t);
+                    fail(batch, t);
+                }
+                batch.clear();
+            }
+        } finally {
+            fail(batch, new IllegalStateException("Ingestion is shutting down"));
+            failQueued();
+        }
+    }
+
+    private void failQueued() {
+        List<PendingPersist> left = new ArrayList<>();
+        persistQueue.drainTo(left);
+        fail(left, new IllegalStateException("Ingestion is shutting down"));
+    }
+
+    private static void fail(List<PendingPersist> pending, Throwable cause) {
+        // No-op for futures that already completed
+        pending.forEach(p -> p.result().completeExceptionally(cause));
+    }
+
+    private void persistBatch(List<PendingPersist> batch) {
+        Map<BatchKey, List<PendingPersist>> groups = new LinkedHashMap<>();
+        for (PendingPersist p : batch) {
+            groups.computeIfAbsent(new BatchKey(p.uploader().getId(), p.course().getId()), k -> new ArrayList<>())
+                    .add(p);
+        }
+
+        for (List<PendingPersist> group : groups.values()) {
+            PendingPersist first = group.get(0);
+            try {
+                List<Resource> saved = resourceService.persistAll(first.uploader(), first.course(),
+                        group.stream().map(PendingPersist::upload).toList());
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).result().complete(saved.get(i));
+                }
+            } catch (Exception e) {
+                // One bad file should not fail its neighbours; retry them one by one
+                log.warn("Batch insert of {} resources failed, retrying individually: {}",
+                        group.size(), e.getMessage());
+                for (PendingPersist p : group) {
+                    try {
+                        p.result().complete(resourceService.persistAll(p.uploader(), p.course(),
+                                List.of(p.upload())).get(0));
+                    } catch (Exception single) {
+                        p.result().completeExceptionally(single);
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopped = true;
+        persistWorker.interrupt();
+    }
+}
@@ -6,43 +6,103 @@ import com.google.genai.types.UploadToFileSearchStoreOperation;
 import io.ATTTT.classGPT.models.Account;
 import io.ATTTT.classGPT.models.Course;
 import io.ATTTT.classGPT.models.Resource;
+import io.ATTTT.classGPT.models.ResourceBlob;
+import io.ATTTT.classGPT.models.ResourceTextChunk;
 import io.ATTTT.classGPT.repositories.CourseRepository;
+import io.ATTTT.classGPT.repositories.ResourceBlobRepository;
 import io.ATTTT.classGPT.repositories.ResourceRepository;
+import io.ATTTT.classGPT.repositories.ResourceTextChunkRepository;
+import io.ATTTT.classGPT.repositories.ResourceTextChunkRepository.ChunkText;
+import io.ATTTT.classGPT.util.CircuitBreaker;
+import io.ATTTT.classGPT.util.CompressedText;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class ResourceService {
 
     private static final Logger log = LoggerFactory.getLogger(ResourceService.class);
     private static final long INDEXING_WAIT_MS = 10000; // 10 seconds
+    private static final int TEXT_CHUNK_CHARS = 8192;
+    private static final long DEFERRED_RETRY_GRACE_MS = 5000;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
 
     private final ResourceRepository resourceRepository;
+    private final ResourceBlobRepository resourceBlobRepository;
+    private final ResourceTextChunkRepository resourceTextChunkRepository;
     private final CourseRepository courseRepository;
+    private final CourseService courseService;
     private final Client client;
     private final FileSearchStoreService fileSearchStoreService;
+    private final ResourceIndexingTracker indexingTracker;
+    private final CircuitBreaker fileSearchBreaker;
+    private final Executor indexingExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    // Resources saved while File Search was unavailable, indexed once it recovers
+    private final Set<Long> deferredIndexing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("file-search-retry").daemon(true).factory());
 
     public ResourceService(ResourceRepository resourceRepository,
+                           ResourceBlobRepository resourceBlobRepository,
+                           ResourceTextChunkRepository resourceTextChunkRepository,
                            CourseRepository courseRepository,
+                           CourseService courseService,
                            FileSearchStoreService fileSearchStoreService,
+                           ResourceIndexingTracker indexingTracker,
+                           @Qualifier("fileSearchCircuitBreaker") CircuitBreaker fileSearchBreaker,
+                           @Qualifier("indexingExecutor") Executor indexingExecutor,
+                           MeterRegistry meterRegistry,
+                           PlatformTransactionManager transactionManager,
                            @Value("${spring.ai.google.genai.api-key}") String apiKey) {
         this.resourceRepository = resourceRepository;
+        this.resourceBlobRepository = resourceBlobRepository;
+        this.resourceTextChunkRepository = resourceTextChunkRepository;
         this.courseRepository = courseRepository;
+        this.courseService = courseService;
         this.fileSearchStoreService = fileSearchStoreService;
+        this.indexingTracker = indexingTracker;
+        this.fileSearchBreaker = fileSearchBreaker;
+        this.indexingExecutor = indexingExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        Gauge.builder("classgpt.filesearch.deferred", deferredIndexing, Set::size)
+                .description("Resources waiting for File Search to recover before indexing")
+                .register(meterRegistry);
         this.client = Client.builder()
                 .apiKey(apiKey)
                 .build();
@@ -56,43 +116,173 @@ public class ResourceService {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new IllegalArgumentException("Course not found"));
 
-        Resource r = new Resource();
-        r.setCourse(course);
-        r.setUploadedBy(uploader);
-        r.setUploadedAt(LocalDateTime.now());
-        r.setOriginalFilename(file.getOriginalFilename());
-        r.setContentType(file.getContentType());
-        r.setSizeBytes(file.getSize());
-
-        String rawTitle = (title != null && !title.isBlank())
-                ? title
-                : file.getOriginalFilename();
-
-        String effectiveTitle = rawTitle.replaceAll("[^a-zA-Z0-9.-]", "_");
-        r.setTitle(rawTitle);
-
-        byte[] bytes = file.getBytes();
-        r.setData(bytes);
-
-        String extracted = extractTextFromFile(file, bytes);
-        r.setExtractedText(extracted);
+        PreparedUpload upload = prepare(title, file.getOriginalFilename(), file.getContentType(), file.getBytes());
 
         // Save to database first
-        Resource savedResource = resourceRepository.save(r);
+        Resource savedResource = persistAll(uploader, course, List.of(upload)).get(0);
 
         // Upload to File Search asynchronously with corrected MIME type
-        String storeName = fileSearchStoreService.ensureStoreForCourse(course);
+        String storeName = storeForIndexing(course);
+        if (storeName == null) {
+            deferIndexing(savedResource.getId());
+            return savedResource;
+        }
         String effectiveMimeType = getEffectiveMimeType(file.getOriginalFilename(), file.getContentType());
         
         log.info("Uploading to File Search: filename={}, mimeType={}", 
                 file.getOriginalFilename(), effectiveMimeType);
         
-        uploadToFileSearchAsync(savedResource.getId(), storeName, effectiveTitle,
-                bytes, effectiveMimeType);
+        uploadToFileSearchAsync(savedResource.getId(), storeName, fileSearchDisplayName(savedResource.getTitle()),
+                upload.bytes(), effectiveMimeType);
 
         return savedResource;
     }
 
+    /**
+     * A file that has been read and had its text extracted, ready to persist.
+     */
+    record PreparedUpload(String title,
+                          String originalFilename,
+                          String contentType,
+                          byte[] bytes,
+                          List<TextSegment> text) {
+    }
+
+    PreparedUpload prepare(String title, String originalFilename, String contentType, byte[] bytes) {
+        String rawTitle = (title != null && !title.isBlank())
+                ? title
+                : originalFilename;
+
+        return new PreparedUpload(rawTitle, originalFilename, contentType, bytes,
+                extractText(originalFilename, contentType, bytes));
+    }
+
+    /**
+     * Saves resources with their blobs and text chunks in one transaction,
+     * joining the caller's if there is one. The indexing tracker only counts
+     * them once that transaction commits, since a failed batch is retried.
+     * Fails with {@link CourseService.ArchivedException} once the course is archived.
+     */
+    List<Resource> persistAll(Account uploader, Course course, List<PreparedUpload> uploads) {
+        return transactionTemplate.execute(status -> {
+            courseService.lockForWrite(course.getId());
+            List<Resource> saved = insertAll(uploader, course, uploads);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    saved.forEach(r -> indexingTracker.onResourceAdded(course.getId()));
+                }
+            });
+            return saved;
+        });
+    }
+
+    private List<Resource> insertAll(Account uploader, Course course, List<PreparedUpload> uploads) {
+        List<Resource> saved = new ArrayList<>(uploads.size());
+        for (PreparedUpload upload : uploads) {
+            Resource r = new Resource();
+            r.setCourse(course);
+            r.setUploadedBy(uploader);
+            r.setUploadedAt(LocalDateTime.now());
+            r.setOriginalFilename(upload.originalFilename());
+            r.setContentType(upload.contentType());
+            r.setSizeBytes(upload.bytes().length);
+            r.setTitle(upload.title());
+
+            Resource savedResource = resourceRepository.save(r);
+
+            ResourceBlob blob = new ResourceBlob();
+            blob.setResource(savedResource);
+            blob.setData(upload.bytes());
+            resourceBlobRepository.save(blob);
+
+            saveTextChunks(savedResource, upload.text());
+            saved.add(savedResource);
+        }
+        return saved;
+    }
+
+    /**
+     * Synchronously uploads a stored resource to File Search, reading its
+     * bytes back from the blob table.
+     */
+    void indexResource(Resource resource, String storeName) {
+        if (storeName == null) {
+            deferIndexing(resource.getId());
+            return;
+        }
+        byte[] bytes = loadData(resource.getId())
+                .orElseThrow(() -> new IllegalStateException("Resource " + resource.getId() + " has no file data"));
+
+        uploadToFileSearch(resource.getId(), storeName, fileSearchDisplayName(resource.getTitle()),
+                bytes, getEffectiveMimeType(resource.getOriginalFilename(), resource.getContentType()));
+    }
+
+    /**
+     * The course's File Search store, or null when it has yet to be created
+     * and File Search is currently unavailable.
+     */
+    String storeForIndexing(Course course) {
+        try {
+            return fileSearchStoreService.ensureStoreForCourse(course);
+        } catch (CircuitBreaker.OpenException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hands a stored resource to the indexing executor. When the executor is
+     * saturated the resource is deferred and retried later instead.
+     */
+    void scheduleIndexing(Resource resource, String storeName) {
+        try {
+            indexingExecutor.execute(() -> {
+                try {
+                    indexResource(resource, storeName);
+                } catch (RuntimeException e) {
+                    log.error("Indexing failed for resource {}", resource.getId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Indexing executor is full, deferring resource {}", resource.getId());
+            deferIndexing(resource.getId());
+        }
+    }
+
+    private void deferIndexing(Long resourceId) {
+        deferredIndexing.add(resourceId);
+        log.info("Resource {} queued for indexing", resourceId);
+
+        if (retryScheduled.compareAndSet(false, true)) {
+            long delayMs = fileSearchBreaker.remainingOpenTime().toMillis() + DEFERRED_RETRY_GRACE_MS;
+            retryScheduler.schedule(this::retryDeferredIndexing, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Re-submits deferred resources. While the breaker is half-open (or the
+     * executor still full) only some get through; the rest are deferred
+     * again and retried on the next round.
+     */
+    private void retryDeferredIndexing() {
+        retryScheduled.set(false);
+        for (Long resourceId : List.copyOf(deferredIndexing)) {
+            if (!deferredIndexing.remove(resourceId)) continue;
+
+            resourceRepository.findById(resourceId).ifPresent(resource ->
+                    scheduleIndexing(resource, storeForIndexing(resource.getCourse())));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        retryScheduler.shutdownNow();
+    }
+
+    private String fileSearchDisplayName(String title) {
+        return title == null ? "resource" : title.replaceAll("[^a-zA-Z0-9.-]", "_");
+    }
+
     /**
      * Get the correct MIME type for a file.
      * Browsers often send application/octet-stream for .md files,
@@ -120,54 +310,76 @@ public class ResourceService {
         return originalMimeType != null ? originalMimeType : "application/octet-stream";
     }
 
-    @Async
     public CompletableFuture<Void> uploadToFileSearchAsync(Long resourceId,
                                                            String storeName,
                                                            String displayName,
                                                            byte[] bytes,
                                                            String mimeType) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                UploadToFileSearchStoreConfig uploadConfig =
-                        UploadToFileSearchStoreConfig.builder()
-                                .displayName(displayName)
-                                .mimeType(mimeType)
-                                .build();
-
-                UploadToFileSearchStoreOperation op =
-                        client.fileSearchStores.uploadToFileSearchStore(
-                                storeName,
-                                bytes,
-                                uploadConfig
-                        );
-
-                String operationName = op.name().orElse("unknown");
-                log.info("Started File Search upload operation: {}", operationName);
-
-                // Wait for indexing
-                Thread.sleep(INDEXING_WAIT_MS);
-
-                // Mark resource as indexed in database
-                resourceRepository.findById(resourceId).ifPresent(resource -> {
-                    resource.setIndexedInFileSearch(true);
-                    resource.setFileSearchOperationName(operationName);
-                    resourceRepository.save(resource);
-                    log.info("Resource {} marked as indexed in File Search", resourceId);
-                });
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("File Search upload interrupted for resource {}", resourceId, e);
-            } catch (Exception e) {
-                log.error("Failed to upload resource {} to File Search", resourceId, e);
-            }
-        });
+        try {
+            return CompletableFuture.runAsync(() ->
+                    uploadToFileSearch(resourceId, storeName, displayName, bytes, mimeType), indexingExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Indexing executor is full, deferring resource {}", resourceId);
+            deferIndexing(resourceId);
+            return CompletableFuture.completedFuture(null);
+        }
     }
 
-    private String extractTextFromFile(MultipartFile file, byte[] bytes) {
-        String filename = file.getOriginalFilename();
-        String contentType = file.getContentType();
+    private void uploadToFileSearch(Long resourceId,
+                                    String storeName,
+                                    String displayName,
+                                    byte[] bytes,
+                                    String mimeType) {
+        try {
+            UploadToFileSearchStoreConfig uploadConfig =
+                    UploadToFileSearchStoreConfig.builder()
+                            .displayName(displayName)
+                            .mimeType(mimeType)
+                            .build();
+
+            UploadToFileSearchStoreOperation op = fileSearchBreaker.execute(() ->
+                    client.fileSearchStores.uploadToFileSearchStore(
+                            storeName,
+                            bytes,
+                            uploadConfig
+                    ));
+
+            String operationName = op.name().orElse("unknown");
+            log.info("Started File Search upload operation: {}", operationName);
+
+            // Wait for indexing
+            Thread.sleep(INDEXING_WAIT_MS);
+
+            // Mark resource as indexed in database
+            resourceRepository.findById(resourceId).ifPresent(resource -> {
+                boolean wasIndexed = Boolean.TRUE.equals(resource.getIndexedInFileSearch());
+                resource.setIndexedInFileSearch(true);
+                resource.setFileSearchOperationName(operationName);
+                resourceRepository.save(resource);
+                if (!wasIndexed) {
+                    indexingTracker.onResourceSettled(resource.getCourse().getId());
+                }
+                log.info("Resource {} marked as indexed in File Search", resourceId);
+            });
+
+        } catch (CircuitBreaker.OpenException e) {
+            deferIndexing(resourceId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("File Search upload interrupted for resource {}", resourceId, e);
+        } catch (Exception e) {
+            log.error("Failed to upload resource {} to File Search", resourceId, e);
+        }
+    }
+
+    /**
+     * Extracted text before compression. PDF segments carry their page range;
+     * other formats are split on line breaks with no page information.
+     */
+    record TextSegment(Integer firstPage, Integer lastPage, String text) {
+    }
 
+    private List<TextSegment> extractText(String filename, String contentType, byte[] bytes) {
         String lowerName = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
         String lowerType = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
 
@@ -180,71 +392,151 @@ public class ResourceService {
                     || lowerName.endsWith(".txt")
                     || lowerName.endsWith(".md")
                     || lowerName.endsWith(".csv")) {
-                return new String(bytes, StandardCharsets.UTF_8);
+                return splitPlainText(new String(bytes, StandardCharsets.UTF_8));
             }
 
         } catch (Exception e) {
             log.warn("Failed to extract text from file {}: {}", filename, e.getMessage());
         }
 
-        return null;
+        return List.of();
     }
 
-    private String extractTextFromPdf(byte[] bytes) throws IOException {
+    private List<TextSegment> extractTextFromPdf(byte[] bytes) throws IOException {
         try (PDDocument document = PDDocument.load(bytes)) {
             PDFTextStripper stripper = new PDFTextStripper();
             stripper.setSortByPosition(true);
-            return stripper.getText(document);
+
+            int pageCount = document.getNumberOfPages();
+            List<TextSegment> segments = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            int firstPage = 1;
+
+            for (int page = 1; page <= pageCount; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                current.append(stripper.getText(document));
+
+                if (current.length() >= TEXT_CHUNK_CHARS || page == pageCount) {
+                    segments.add(new TextSegment(firstPage, page, current.toString()));
+                    current.setLength(0);
+                    firstPage = page + 1;
+                }
+            }
+            return segments;
+        }
+    }
+
+    // Also used by LegacyResourceDataMigration to re-chunk pre-Flyway text
+    static List<TextSegment> splitPlainText(String text) {
+        List<TextSegment> segments = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + TEXT_CHUNK_CHARS);
+            if (end < text.length()) {
+                int newline = text.lastIndexOf('\n', end);
+                if (newline > start) {
+                    end = newline + 1;
+                }
+            }
+            segments.add(new TextSegment(null, null, text.substring(start, end)));
+            start = end;
         }
+        return segments;
     }
 
+    private void saveTextChunks(Resource resource, List<TextSegment> segments) {
+        List<ResourceTextChunk> chunks = new ArrayList<>();
+        int index = 0;
+        for (TextSegment segment : segments) {
+            if (segment.text().isBlank()) continue;
+
+            ResourceTextChunk chunk = new ResourceTextChunk();
+            chunk.setResource(resource);
+            chunk.setChunkIndex(index++);
+            chunk.setFirstPage(segment.firstPage());
+            chunk.setLastPage(segment.lastPage());
+            chunk.setRawLength(segment.text().length());
+            chunk.setCompressed(CompressedText.compress(segment.text()));
+            chunks.add(chunk);
+        }
+        if (!chunks.isEmpty()) {
+            resourceTextChunkRepository.saveAll(chunks);
+        }
+    }
+
+    @Transactional(readOnly = true)
     public List<Resource> listForCourse(Long courseId) {
         return resourceRepository.findByCourseIdOrderByUploadedAtDesc(courseId);
     }
 
+    public Optional<byte[]> loadData(Long resourceId) {
+        return resourceBlobRepository.findDataByResourceId(resourceId);
+    }
+
+    @Transactional
     public void deleteResource(Account requester, Long resourceId) {
-        resourceRepository.deleteById(resourceId);
+        resourceRepository.findById(resourceId).ifPresent(resource -> {
+            resourceBlobRepository.deleteById(resourceId);
+            resourceTextChunkRepository.deleteByResourceId(resourceId);
+            resourceRepository.delete(resource);
+            if (!Boolean.TRUE.equals(resource.getIndexedInFileSearch())) {
+                indexingTracker.onResourceSettled(resource.getCourse().getId());
+            }
+        });
     }
 
 
+    /**
+     * Readiness check used on the chat path; backed by an in-memory counter.
+     */
     public boolean areCourseResourcesIndexed(Long courseId) {
-        List<Resource> resources = resourceRepository.findByCourseIdOrderByUploadedAtDesc(courseId);
-
-        if (resources.isEmpty()) {
-            return true; // No resources to index
-        }
-
-        return resources.stream()
-                .allMatch(r -> r.getIndexedInFileSearch() != null && r.getIndexedInFileSearch());
+        return indexingTracker.isReady(courseId);
     }
 
 
     public long getIndexingCount(Long courseId) {
-        List<Resource> resources = resourceRepository.findByCourseIdOrderByUploadedAtDesc(courseId);
-        return resources.stream()
-                .filter(r -> r.getIndexedInFileSearch() == null || !r.getIndexedInFileSearch())
-                .count();
+        return indexingTracker.pendingCount(courseId);
     }
 
+    /**
+     * Finds the resource whose extracted text contains the grounding snippet.
+     * Chunks are scrolled from the database and inflated one at a time, and
+     * the scan stops at the first hit, so later chunks are never read; the
+     * tail of the previous chunk is carried over so a snippet spanning a
+     * chunk boundary still matches.
+     */
+    @Transactional(readOnly = true)
     public Optional<Resource> findByCourseAndSnippet(Long courseId, String snippetRaw) {
         if (snippetRaw == null || snippetRaw.isBlank()) return Optional.empty();
 
-        String snippet = snippetRaw.replaceAll("\\s+", " ").trim();
+        String snippet = WHITESPACE.matcher(snippetRaw).replaceAll(" ").trim();
         if (snippet.length() > 400) {
             snippet = snippet.substring(0, 400);
         }
 
-        List<Resource> resources = resourceRepository.findByCourseIdOrderByUploadedAtDesc(courseId);
-        for (Resource r : resources) {
-            String extracted = r.getExtractedText();
-            if (extracted == null || extracted.isBlank()) continue;
-
-            String normalized = extracted.replaceAll("\\s+", " ");
-            if (normalized.contains(snippet)) {
-                return Optional.of(r);
+        Long currentResourceId = null;
+        String carry = "";
+
+        try (Stream<ChunkText> chunks = resourceTextChunkRepository.streamByCourseIdInReadingOrder(courseId)) {
+            for (ChunkText chunk : (Iterable<ChunkText>) chunks::iterator) {
+                if (!chunk.getResourceId().equals(currentResourceId)) {
+                    currentResourceId = chunk.getResourceId();
+                    carry = "";
+                }
+
+                String text = CompressedText.decompress(chunk.getCompressed(), chunk.getRawLength());
+                String normalized = WHITESPACE.matcher(carry + text).replaceAll(" ");
+                if (normalized.contains(snippet)) {
+                    return resourceRepository.findById(currentResourceId);
+                }
+
+                carry = normalized.length() > snippet.length()
+                        ? normalized.substring(normalized.length() - snippet.length())
+                        : normalized;
             }
         }
 
         return Optional.empty();
     }
-}
\ No newline at end of file
+}
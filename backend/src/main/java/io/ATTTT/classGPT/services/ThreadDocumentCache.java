@@ -0,0 +1,72 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.models.Post;
+import io.ATTTT.classGPT.repositories.RepliesRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * LRU cache of rendered RAG thread documents, one per post. Each entry is
+ * stamped with the post's modification time and the reply count and latest
+ * reply change, read with one aggregate query, so an edit, a new reply or a
+ * deleted reply causes a rebuild on the next read without any explicit
+ * invalidation and without loading the replies.
+ */
+@Component
+public class ThreadDocumentCache {
+
+    private static final int MAX_ENTRIES = 5000;
+
+    /** A rendered thread and whether an instructor has replied in it. */
+    public record ThreadDocument(String text, boolean instructorAnswered) {
+    }
+
+    record Version(LocalDateTime postModifiedAt, long replyCount, LocalDateTime lastReplyModified) {
+    }
+
+    private record Entry(Version version, ThreadDocument document) {
+    }
+
+    private final RepliesRepository repliesRepository;
+
+    private final Map<Long, Entry> entries = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    public ThreadDocumentCache(RepliesRepository repliesRepository) {
+        this.repliesRepository = repliesRepository;
+    }
+
+    public ThreadDocument get(Post post, Function<Post, ThreadDocument> renderer) {
+        if (post.getId() == null) {
+            return renderer.apply(post);
+        }
+
+        Version version = versionOf(post.getModifiedAt(), repliesRepository.findReplyStampByPostId(post.getId()));
+        Entry cached = entries.get(post.getId());
+        if (cached != null && cached.version().equals(version)) {
+            return cached.document();
+        }
+
+        ThreadDocument document = renderer.apply(post);
+        entries.put(post.getId(), new Entry(version, document));
+        return document;
+    }
+
+    public void evict(Long postId) {
+        entries.remove(postId);
+    }
+
+    static Version versionOf(LocalDateTime postModifiedAt, RepliesRepository.ReplyStamp replies) {
+        return new Version(postModifiedAt, replies.getCount(), replies.getLastModified());
+    }
+}
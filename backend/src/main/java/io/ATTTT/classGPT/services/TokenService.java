@@ -0,0 +1,133 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.dto.TokenResponse;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Authority;
+import io.ATTTT.classGPT.repositories.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues the signed tokens used when {@code classgpt.auth.mode=token}.
+ * Access tokens are short-lived and carry the account id and roles, so a
+ * request is authorized from the token alone. Refresh tokens live longer
+ * and are only accepted by {@link #refresh}, which re-reads the account so
+ * role changes apply from the next refresh. Nothing is stored server-side,
+ * so a refresh token stays valid until it expires.
+ */
+@Service
+@ConditionalOnProperty(name = "classgpt.auth.mode", havingValue = "token")
+public class TokenService {
+
+    public static final String ACCOUNT_ID_CLAIM = "aid";
+    public static final String ROLES_CLAIM = "roles";
+    static final String TYPE_CLAIM = "typ";
+    static final String ACCESS = "access";
+    static final String REFRESH = "refresh";
+    static final String ISSUER = "classgpt";
+
+    private final JwtEncoder encoder;
+    private final JwtDecoder refreshDecoder;
+    private final AccountRepository accountRepository;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    public TokenService(JwtEncoder encoder,
+                        SecretKey tokenSigningKey,
+                        AccountRepository accountRepository,
+                        @Value("${classgpt.auth.token.access-ttl:15m}") Duration accessTtl,
+                        @Value("${classgpt.auth.token.refresh-ttl:14d}") Duration refreshTtl) {
+        this.encoder = encoder;
+        this.refreshDecoder = decoder(tokenSigningKey, REFRESH);
+        this.accountRepository = accountRepository;
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+    }
+
+    /**
+     * A decoder for the resource server that rejects refresh tokens.
+     */
+    public static JwtDecoder accessDecoder(SecretKey key) {
+        return decoder(key, ACCESS);
+    }
+
+    // Only accepts unexpired tokens of the given type signed with key
+    private static JwtDecoder decoder(SecretKey key, String type) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key)
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefaultWithIssuer(ISSUER),
+                new JwtClaimValidator<String>(TYPE_CLAIM, type::equals)));
+        return decoder;
+    }
+
+    public TokenResponse issue(Account account) {
+        Instant now = Instant.now();
+        List<String> roles = account.getAuthorities().stream()
+                .map(Authority::getName)
+                .sorted()
+                .toList();
+
+        JwtClaimsSet access = JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .subject(account.getEmail())
+                .issuedAt(now)
+                .expiresAt(now.plus(accessTtl))
+                .claim(TYPE_CLAIM, ACCESS)
+                .claim(ACCOUNT_ID_CLAIM, account.getId())
+                .claim(ROLES_CLAIM, roles)
+                .build();
+
+        JwtClaimsSet refresh = JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .subject(account.getEmail())
+                .id(UUID.randomUUID().toString())
+                .issuedAt(now)
+                .expiresAt(now.plus(refreshTtl))
+                .claim(TYPE_CLAIM, REFRESH)
+                .claim(ACCOUNT_ID_CLAIM, account.getId())
+                .build();
+
+        return new TokenResponse(encode(access), encode(refresh), "Bearer", accessTtl.toSeconds());
+    }
+
+    public TokenResponse refresh(String refreshToken) {
+        Jwt jwt;
+        try {
+            jwt = refreshDecoder.decode(refreshToken);
+        } catch (JwtException e) {
+            throw new IllegalArgumentException("Invalid refresh token", e);
+        }
+        if (!(jwt.getClaim(ACCOUNT_ID_CLAIM) instanceof Number accountId)) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        Account account = accountRepository.findById(accountId.longValue())
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+        return issue(account);
+    }
+
+    private String encode(JwtClaimsSet claims) {
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+        return encoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+}
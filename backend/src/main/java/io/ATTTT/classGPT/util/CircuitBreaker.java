@@ -0,0 +1,209 @@
+package io.ATTTT.classGPT.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Count-based circuit breaker for calls to an external service.
+ * <p>
+ * CLOSED: calls pass through and outcomes are recorded in a sliding window
+ * of the last {@code windowSize} calls. Once at least {@code minimumCalls}
+ * are recorded and the failure rate reaches the threshold, the circuit opens.
+ * <p>
+ * OPEN: calls are rejected with {@link OpenException} without touching the
+ * service. After {@code openDuration} the next call moves it to HALF_OPEN.
+ * <p>
+ * HALF_OPEN: up to {@code halfOpenProbes} calls are let through. If they all
+ * succeed the circuit closes; any failure opens it again.
+ * <p>
+ * Exceptions for which {@code isFailure} returns false (e.g. 4xx responses)
+ * are passed on to the caller but count as successes, since the service did answer.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public record Settings(int windowSize,
+                           int minimumCalls,
+                           double failureRateThreshold,
+                           Duration openDuration,
+                           int halfOpenProbes) {
+    }
+
+    public static class OpenException extends RuntimeException {
+        public OpenException(String name) {
+            super("Circuit '" + name + "' is open");
+        }
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final Predicate<Throwable> isFailure;
+
+    // Ring buffer of recent outcomes, true = failure
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long outageStartedAt;
+    private int probesStarted;
+    private int probeSuccesses;
+
+    private final Counter rejected;
+    private final Timer openTime;
+
+    public CircuitBreaker(String name, Settings settings, Predicate<Throwable> isFailure, MeterRegistry registry) {
+        this.name = name;
+        this.settings = settings;
+        this.isFailure = isFailure;
+        this.outcomes = new boolean[settings.windowSize()];
+
+        Gauge.builder("classgpt.circuit.state", this, cb -> cb.state().ordinal())
+                .description("Circuit state: 0 = closed, 1 = open, 2 = half-open")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("classgpt.circuit.failure.rate", this, CircuitBreaker::failureRate)
+                .description("Failure rate over the sliding window")
+                .tag("name", name)
+                .register(registry);
+        this.rejected = Counter.builder("classgpt.circuit.rejected")
+                .description("Calls rejected while the circuit was open")
+                .tag("name", name)
+                .register(registry);
+        this.openTime = Timer.builder("classgpt.circuit.open.time")
+                .description("Time from the circuit opening until it closed again")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code action} through the breaker.
+     *
+     * @throws OpenException if the circuit is open, without running the action
+     */
+    public <T> T execute(Supplier<T> action) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            throw new OpenException(name);
+        }
+        try {
+            T result = action.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (isFailure.test(e)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized double failureRate() {
+        return recorded == 0 ? 0.0 : (double) failures / recorded;
+    }
+
+    /**
+     * Time until an open circuit starts probing again; zero unless OPEN.
+     */
+    public synchronized Duration remainingOpenTime() {
+        if (state != State.OPEN) return Duration.ZERO;
+        long remaining = settings.openDuration().toNanos() - (System.nanoTime() - openedAt);
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < settings.openDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probeSuccesses = 0;
+            log.info("Circuit '{}' half-open, probing", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= settings.halfOpenProbes()) {
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        switch (state) {
+            case CLOSED -> recordOutcome(false);
+            case HALF_OPEN -> {
+                probeSuccesses++;
+                if (probeSuccesses >= settings.halfOpenProbes()) {
+                    close();
+                }
+            }
+            case OPEN -> {
+                // A call that started before the circuit opened; nothing to learn from it
+            }
+        }
+    }
+
+    private synchronized void onFailure() {
+        switch (state) {
+            case CLOSED -> {
+                recordOutcome(true);
+                if (recorded >= settings.minimumCalls() && failureRate() >= settings.failureRateThreshold()) {
+                    open();
+                    outageStartedAt = openedAt;
+                }
+            }
+            case HALF_OPEN -> open();
+            case OPEN -> {
+                // Already open
+            }
+        }
+    }
+
+    private void recordOutcome(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) failures--;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        log.warn("Circuit '{}' opened (failure rate {}), rejecting calls for {}",
+                name, String.format("%.2f", failureRate()), settings.openDuration());
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        openTime.record(Duration.ofNanos(System.nanoTime() - outageStartedAt));
+        log.info("Circuit '{}' closed", name);
+    }
+}
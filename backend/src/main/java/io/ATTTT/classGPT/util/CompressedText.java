@@ -0,0 +1,64 @@
+package io.ATTTT.classGPT.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate framing for stored text. Each chunk is an independent zlib stream,
+ * so a reader only inflates the chunks it actually looks at.
+ */
+public final class CompressedText {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private CompressedText() {
+    }
+
+    public static byte[] compress(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, text.length() / 3));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (Writer writer = new OutputStreamWriter(
+                new DeflaterOutputStream(out, deflater, BUFFER_SIZE), StandardCharsets.UTF_8)) {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Streaming view over a compressed chunk. The caller owns the reader and
+     * must close it to release the native inflater.
+     */
+    public static Reader openReader(byte[] compressed) {
+        return new InputStreamReader(
+                new InflaterInputStream(new ByteArrayInputStream(compressed)),
+                StandardCharsets.UTF_8);
+    }
+
+    public static String decompress(byte[] compressed, int expectedLength) {
+        StringBuilder sb = new StringBuilder(Math.max(16, expectedLength));
+        char[] buf = new char[BUFFER_SIZE];
+        try (Reader reader = openReader(compressed)) {
+            int n;
+            while ((n = reader.read(buf)) != -1) {
+                sb.append(buf, 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,223 @@
+package io.ATTTT.classGPT.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass HTML to plain text conversion for post and reply bodies.
+ * Tags are dropped, block-level tags become line breaks, script/style
+ * content and comments are skipped, and common named plus numeric
+ * entities are decoded. Runs of spaces collapse to one and at most one
+ * blank line is kept. Text that is not HTML passes through unchanged
+ * apart from whitespace collapsing.
+ */
+public final class HtmlText {
+
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "address", "article", "aside", "blockquote", "br", "dd", "div", "dl", "dt",
+            "footer", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "ol",
+            "p", "pre", "section", "table", "tr", "ul");
+
+    // List items and rows break before themselves only, so lists stay compact
+    private static final Set<String> ITEM_TAGS = Set.of("dd", "dt", "li", "tr");
+
+    private static final Map<String, Character> ENTITIES = Map.of(
+            "amp", '&',
+            "lt", '<',
+            "gt", '>',
+            "quot", '"',
+            "apos", '\'',
+            "nbsp", ' ');
+
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private HtmlText() {
+    }
+
+    public static String toPlainText(String html) {
+        if (html == null || html.isEmpty()) return "";
+
+        Output out = new Output(html.length());
+        int n = html.length();
+        int i = 0;
+
+        while (i < n) {
+            char c = html.charAt(i);
+
+            if (c == '<') {
+                if (html.startsWith("<!--", i)) {
+                    int close = html.indexOf("-->", i + 4);
+                    i = close < 0 ? n : close + 3;
+                    continue;
+                }
+
+                int end = tagEnd(html, i);
+                if (end < 0) {
+                    out.text(c);
+                    i++;
+                    continue;
+                }
+
+                boolean closing = i + 1 < n && html.charAt(i + 1) == '/';
+                String name = tagName(html, closing ? i + 2 : i + 1, end);
+
+                if (!closing && (name.equals("script") || name.equals("style"))) {
+                    i = skipElement(html, end + 1, name);
+                    continue;
+                }
+                if (BLOCK_TAGS.contains(name) && !(closing && ITEM_TAGS.contains(name))) {
+                    out.newline();
+                }
+                i = end + 1;
+
+            } else if (c == '&') {
+                i = decodeEntity(html, i, out);
+
+            } else if (c == '\n') {
+                out.newline();
+                i++;
+
+            } else if (Character.isWhitespace(c)) {
+                out.space();
+                i++;
+
+            } else {
+                out.text(c);
+                i++;
+            }
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Index of the '>' closing the tag opened at {@code start}, or -1 when the
+     * '<' does not start a tag (e.g. "a < b").
+     */
+    private static int tagEnd(String s, int start) {
+        int i = start + 1;
+        if (i >= s.length()) return -1;
+
+        char first = s.charAt(i);
+        if (!Character.isLetter(first) && first != '/' && first != '!') return -1;
+
+        char quote = 0;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String tagName(String s, int from, int end) {
+        int i = from;
+        while (i < end && Character.isLetterOrDigit(s.charAt(i))) i++;
+        return s.substring(from, i).toLowerCase(Locale.ROOT);
+    }
+
+    private static int skipElement(String s, int from, String name) {
+        String close = "</" + name;
+        for (int i = from; i <= s.length() - close.length(); i++) {
+            if (s.regionMatches(true, i, close, 0, close.length())) {
+                int end = s.indexOf('>', i);
+                return end < 0 ? s.length() : end + 1;
+            }
+        }
+        return s.length();
+    }
+
+    private static int decodeEntity(String s, int amp, Output out) {
+        int limit = Math.min(s.length(), amp + MAX_ENTITY_LENGTH + 2);
+        int semi = -1;
+        for (int i = amp + 1; i < limit; i++) {
+            if (s.charAt(i) == ';') {
+                semi = i;
+                break;
+            }
+        }
+        if (semi < 0) {
+            out.text('&');
+            return amp + 1;
+        }
+
+        String entity = s.substring(amp + 1, semi);
+        if (entity.startsWith("#")) {
+            try {
+                int codePoint = entity.length() > 1 && (entity.charAt(1) == 'x' || entity.charAt(1) == 'X')
+                        ? Integer.parseInt(entity.substring(2), 16)
+                        : Integer.parseInt(entity.substring(1));
+                // NUL and lone surrogates are not characters; leave those references as text
+                if (codePoint > 0 && Character.isValidCodePoint(codePoint)
+                        && !(codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                    out.text(new String(Character.toChars(codePoint)));
+                    return semi + 1;
+                }
+            } catch (NumberFormatException ignored) {
+                // fall through and keep the text as-is
+            }
+        } else {
+            Character decoded = ENTITIES.get(entity);
+            if (decoded != null) {
+                out.text(decoded);
+                return semi + 1;
+            }
+        }
+
+        out.text('&');
+        return amp + 1;
+    }
+
+    private static final class Output {
+        private final StringBuilder sb;
+        private boolean pendingSpace;
+        private int newlines;
+
+        Output(int capacity) {
+            this.sb = new StringBuilder(capacity);
+        }
+
+        void text(char c) {
+            flushSpace();
+            sb.append(c);
+            newlines = 0;
+        }
+
+        void text(String s) {
+            flushSpace();
+            sb.append(s);
+            newlines = 0;
+        }
+
+        void space() {
+            pendingSpace = true;
+        }
+
+        void newline() {
+            pendingSpace = false;
+            if (sb.isEmpty() || newlines >= 2) return;
+            sb.append('\n');
+            newlines++;
+        }
+
+        private void flushSpace() {
+            if (pendingSpace && newlines == 0 && !sb.isEmpty()) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+        }
+
+        @Override
+        public String toString() {
+            int end = sb.length();
+            while (end > 0 && Character.isWhitespace(sb.charAt(end - 1))) end--;
+            return sb.substring(0, end);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.ATTTT.classGPT.util;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Last day of an academic term written as "Fall 2025", "spring 2026" etc.
+ * Terms in any other format have no known end date.
+ */
+public final class TermDates {
+
+    private static final Pattern TERM = Pattern.compile("^\\s*([A-Za-z]+)\\s+(\\d{4})\\s*$");
+
+    private static final Map<String, MonthDay> SEASON_END = Map.of(
+            "winter", MonthDay.of(3, 31),
+            "spring", MonthDay.of(5, 31),
+            "summer", MonthDay.of(8, 31),
+            "fall", MonthDay.of(12, 31),
+            "autumn", MonthDay.of(12, 31));
+
+    private TermDates() {
+    }
+
+    public static Optional<LocalDate> endOf(String term) {
+        if (term == null) return Optional.empty();
+        Matcher m = TERM.matcher(term);
+        if (!m.matches()) return Optional.empty();
+
+        MonthDay end = SEASON_END.get(m.group(1).toLowerCase(Locale.ROOT));
+        if (end == null) return Optional.empty();
+        return Optional.of(end.atYear(Integer.parseInt(m.group(2))));
+    }
+}
@@ -0,0 +1,33 @@
+package io.ATTTT.classGPT.util;
+
+import java.time.Duration;
+
+/**
+ * Token bucket rate limiter: holds up to {@code capacity} tokens and refills
+ * {@code capacity} tokens per {@code period}, spread evenly over the period.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long capacity, Duration period) {
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / period.toNanos();
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+}
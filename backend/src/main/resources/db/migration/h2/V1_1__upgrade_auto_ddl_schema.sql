@@ -0,0 +1,43 @@
+-- Databases that Hibernate auto-DDL built before Flyway are baselined at V1,
+-- so V1 never runs on them. This adds what the entities gained since then.
+-- On a fresh database built by V1 every statement is a no-op.
+
+CREATE SEQUENCE IF NOT EXISTS account_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS post_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS replies_seq START WITH 1 INCREMENT BY 50;
+
+-- Entities that used IDENTITY now take ids from pooled-lo sequences. The
+-- PostgreSQL V2 creates these; on H2 they start past the rows already there.
+CREATE SEQUENCE IF NOT EXISTS course_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS enrollment_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS post_likes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS resource_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS resource_text_chunk_seq START WITH 1 INCREMENT BY 50;
+
+ALTER SEQUENCE course_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM course);
+ALTER SEQUENCE enrollment_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM enrollment);
+ALTER SEQUENCE post_likes_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM post_likes);
+ALTER SEQUENCE resource_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM resource);
+
+ALTER TABLE post ADD COLUMN IF NOT EXISTS body_text text;
+ALTER TABLE replies ADD COLUMN IF NOT EXISTS body_text text;
+ALTER TABLE replies ADD COLUMN IF NOT EXISTS pregenerated boolean;
+
+CREATE TABLE IF NOT EXISTS resource_blob (
+    resource_id bigint NOT NULL,
+    data blob,
+    PRIMARY KEY (resource_id),
+    CONSTRAINT fk_resource_blob_resource FOREIGN KEY (resource_id) REFERENCES resource (id)
+);
+
+CREATE TABLE IF NOT EXISTS resource_text_chunk (
+    id bigint NOT NULL,
+    resource_id bigint NOT NULL,
+    chunk_index integer NOT NULL,
+    first_page integer,
+    last_page integer,
+    raw_length integer NOT NULL,
+    compressed blob NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_resource_text_chunk_resource FOREIGN KEY (resource_id) REFERENCES resource (id)
+);
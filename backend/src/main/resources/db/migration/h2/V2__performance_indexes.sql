@@ -0,0 +1,15 @@
+-- Indexes for the queries the app runs on every page view and uniqueness on
+-- enrollment. H2 has no expression indexes, so lower(email) is only indexed
+-- on PostgreSQL.
+
+ALTER TABLE enrollment
+    ADD CONSTRAINT uk_enrollment_account_course UNIQUE (account_id, course_id);
+
+CREATE INDEX idx_post_course_created ON post (course_id, created_at);
+CREATE INDEX idx_post_account ON post (account_id);
+CREATE INDEX idx_post_likes_account_post ON post_likes (account_id, post_id);
+CREATE INDEX idx_replies_post ON replies (post_id);
+CREATE INDEX idx_replies_llm_flagged_created ON replies (llm_generated, flagged, created_at);
+CREATE INDEX idx_resource_course_uploaded ON resource (course_id, uploaded_at);
+CREATE INDEX idx_resource_text_chunk_resource ON resource_text_chunk (resource_id, chunk_index);
+CREATE INDEX idx_account_authority_authority ON account_authority (authority_name);
@@ -0,0 +1,13 @@
+-- Replies and likes carry their post's course_id, which PostgreSQL uses as
+-- the partition key. H2 has no partitioning; the column is kept in step so
+-- the entity mapping is the same.
+
+ALTER TABLE replies ADD COLUMN course_id bigint;
+UPDATE replies r SET course_id = (SELECT p.course_id FROM post p WHERE p.id = r.post_id);
+ALTER TABLE replies ALTER COLUMN course_id SET NOT NULL;
+ALTER TABLE replies ADD CONSTRAINT fk_replies_course FOREIGN KEY (course_id) REFERENCES course (id);
+
+ALTER TABLE post_likes ADD COLUMN course_id bigint;
+UPDATE post_likes l SET course_id = (SELECT p.course_id FROM post p WHERE p.id = l.post_id);
+ALTER TABLE post_likes ALTER COLUMN course_id SET NOT NULL;
+ALTER TABLE post_likes ADD CONSTRAINT fk_post_likes_course FOREIGN KEY (course_id) REFERENCES course (id);
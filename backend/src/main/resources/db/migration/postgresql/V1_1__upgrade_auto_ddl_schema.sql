@@ -0,0 +1,30 @@
+-- Databases that Hibernate auto-DDL built before Flyway are baselined at V1,
+-- so V1 never runs on them. This adds what the entities gained since then.
+-- On a fresh database built by V1 every statement is a no-op.
+
+CREATE SEQUENCE IF NOT EXISTS account_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS post_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS replies_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE post ADD COLUMN IF NOT EXISTS body_text text;
+ALTER TABLE replies ADD COLUMN IF NOT EXISTS body_text text;
+ALTER TABLE replies ADD COLUMN IF NOT EXISTS pregenerated boolean;
+
+CREATE TABLE IF NOT EXISTS resource_blob (
+    resource_id bigint NOT NULL,
+    data oid,
+    PRIMARY KEY (resource_id),
+    CONSTRAINT fk_resource_blob_resource FOREIGN KEY (resource_id) REFERENCES resource (id)
+);
+
+CREATE TABLE IF NOT EXISTS resource_text_chunk (
+    id bigint NOT NULL,
+    resource_id bigint NOT NULL,
+    chunk_index integer NOT NULL,
+    first_page integer,
+    last_page integer,
+    raw_length integer NOT NULL,
+    compressed oid NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_resource_text_chunk_resource FOREIGN KEY (resource_id) REFERENCES resource (id)
+);
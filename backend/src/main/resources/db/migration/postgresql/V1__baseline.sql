@@ -0,0 +1,174 @@
+-- Schema as Hibernate auto-DDL created it, with the sequences from the
+-- pooled-lo id generators. Existing databases are baselined at this
+-- version (spring.flyway.baseline-on-migrate) and skip this script.
+
+CREATE SEQUENCE account_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE course_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE enrollment_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE post_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE post_likes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE replies_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE resource_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE resource_text_chunk_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE authority (
+    name varchar(32) NOT NULL,
+    PRIMARY KEY (name)
+);
+
+CREATE TABLE account (
+    id bigint NOT NULL,
+    email varchar(255),
+    password varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE account_authority (
+    account_id bigint NOT NULL,
+    authority_name varchar(32) NOT NULL,
+    PRIMARY KEY (account_id, authority_name),
+    CONSTRAINT fk_account_authority_account FOREIGN KEY (account_id) REFERENCES account (id),
+    CONSTRAINT fk_account_authority_authority FOREIGN KEY (authority_name) REFERENCES authority (name)
+);
+
+CREATE TABLE course (
+    id bigint NOT NULL,
+    code varchar(255),
+    name varchar(255),
+    term varchar(255),
+    join_code varchar(255) NOT NULL,
+    owner_id bigint,
+    file_search_store_name varchar(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_course_join_code UNIQUE (join_code),
+    CONSTRAINT fk_course_owner FOREIGN KEY (owner_id) REFERENCES account (id)
+);
+
+CREATE TABLE enrollment (
+    id bigint NOT NULL,
+    account_id bigint NOT NULL,
+    course_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_enrollment_account FOREIGN KEY (account_id) REFERENCES account (id),
+    CONSTRAINT fk_enrollment_course FOREIGN KEY (course_id) REFERENCES course (id)
+);
+
+CREATE TABLE post (
+    id bigint NOT NULL,
+    title varchar(255),
+    body text,
+    body_text text,
+    image_file_path varchar(255),
+    created_at timestamp(6),
+    modified_at timestamp(6),
+    is_pinned boolean NOT NULL,
+    up_votes integer NOT NULL,
+    account_id bigint NOT NULL,
+    course_id bigint NOT NULL,
+    student_answer text,
+    student_answer_endorsed boolean NOT NULL,
+    student_answer_author_id bigint,
+    student_answer_updated_at timestamp(6),
+    student_answer_endorsed_by_id bigint,
+    student_answer_endorsed_at timestamp(6),
+    endorsed boolean NOT NULL,
+    endorsed_by_id bigint,
+    endorsed_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_post_account FOREIGN KEY (account_id) REFERENCES account (id),
+    CONSTRAINT fk_post_course FOREIGN KEY (course_id) REFERENCES course (id),
+    CONSTRAINT fk_post_student_answer_author FOREIGN KEY (student_answer_author_id) REFERENCES account (id),
+    CONSTRAINT fk_post_student_answer_endorsed_by FOREIGN KEY (student_answer_endorsed_by_id) REFERENCES account (id),
+    CONSTRAINT fk_post_endorsed_by FOREIGN KEY (endorsed_by_id) REFERENCES account (id)
+);
+
+CREATE TABLE post_tags (
+    post_id bigint NOT NULL,
+    tag_value varchar(255),
+    CONSTRAINT fk_post_tags_post FOREIGN KEY (post_id) REFERENCES post (id)
+);
+
+CREATE TABLE post_likes (
+    id bigint NOT NULL,
+    post_id bigint NOT NULL,
+    account_id bigint NOT NULL,
+    created_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_post_likes_post_account UNIQUE (post_id, account_id),
+    CONSTRAINT fk_post_likes_post FOREIGN KEY (post_id) REFERENCES post (id),
+    CONSTRAINT fk_post_likes_account FOREIGN KEY (account_id) REFERENCES account (id)
+);
+
+CREATE TABLE replies (
+    id bigint NOT NULL,
+    body text,
+    body_text text,
+    created_at timestamp(6),
+    modified_at timestamp(6),
+    author_id bigint,
+    post_id bigint NOT NULL,
+    from_instructor boolean NOT NULL,
+    is_instructor_answer boolean NOT NULL,
+    llm_generated boolean NOT NULL,
+    pregenerated boolean,
+    endorsed boolean NOT NULL,
+    parent_reply_id bigint,
+    reviewed boolean NOT NULL,
+    reviewed_at timestamp(6),
+    reviewed_by_id bigint,
+    review_feedback varchar(1000),
+    flagged boolean NOT NULL,
+    flagged_at timestamp(6),
+    flagged_by_id bigint,
+    flag_reason varchar(500),
+    instructor_edited boolean NOT NULL,
+    replaced_by_instructor boolean NOT NULL,
+    edited_at timestamp(6),
+    edited_by_id bigint,
+    original_llm_response text,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_replies_author FOREIGN KEY (author_id) REFERENCES account (id),
+    CONSTRAINT fk_replies_post FOREIGN KEY (post_id) REFERENCES post (id),
+    CONSTRAINT fk_replies_reviewed_by FOREIGN KEY (reviewed_by_id) REFERENCES account (id),
+    CONSTRAINT fk_replies_flagged_by FOREIGN KEY (flagged_by_id) REFERENCES account (id),
+    CONSTRAINT fk_replies_edited_by FOREIGN KEY (edited_by_id) REFERENCES account (id)
+);
+
+CREATE TABLE resource (
+    id bigint NOT NULL,
+    title varchar(255),
+    original_filename varchar(255),
+    content_type varchar(255),
+    size_bytes bigint NOT NULL,
+    course_id bigint NOT NULL,
+    uploaded_by_id bigint NOT NULL,
+    uploaded_at timestamp(6),
+    indexed_in_file_search boolean,
+    file_search_operation_name varchar(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_resource_course FOREIGN KEY (course_id) REFERENCES course (id),
+    CONSTRAINT fk_resource_uploaded_by FOREIGN KEY (uploaded_by_id) REFERENCES account (id)
+);
+
+CREATE TABLE resource_blob (
+    resource_id bigint NOT NULL,
+    data oid,
+    PRIMARY KEY (resource_id),
+    CONSTRAINT fk_resource_blob_resource FOREIGN KEY (resource_id) REFERENCES resource (id)
+);
+
+CREATE TABLE resource_text_chunk (
+    id bigint NOT NULL,
+    resource_id bigint NOT NULL,
+    chunk_index integer NOT NULL,
+    first_page integer,
+    last_page integer,
+    raw_length integer NOT NULL,
+    compressed oid NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_resource_text_chunk_resource FOREIGN KEY (resource_id) REFERENCES resource (id)
+);
@@ -0,0 +1,74 @@
+-- Indexes for the queries the app runs on every page view, uniqueness on
+-- enrollment, and id sequences for databases created by auto-DDL.
+
+-- Entities that used IDENTITY now take ids from pooled-lo sequences.
+-- Databases baselined from auto-DDL do not have these sequences yet.
+CREATE SEQUENCE IF NOT EXISTS course_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS enrollment_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS post_likes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS resource_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS resource_text_chunk_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('course_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM course), false);
+SELECT setval('enrollment_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM enrollment), false);
+SELECT setval('post_likes_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM post_likes), false);
+SELECT setval('resource_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM resource), false);
+SELECT setval('resource_text_chunk_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM resource_text_chunk), false);
+
+ALTER TABLE course ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE enrollment ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE post_likes ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE resource ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE resource_text_chunk ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+-- Post ids always came from Hibernate's implicit post_seq generator with
+-- increment 50; Post's class-level allocationSize 1 generator was never
+-- referenced. Auto-DDL could still have created post_seq from that unused
+-- declaration with INCREMENT BY 1, and Hibernate refuses to start when the
+-- increment does not match. No-op where it is already 50; the next value
+-- stays past every issued id.
+ALTER SEQUENCE post_seq INCREMENT BY 50;
+
+-- account_seq, post_seq and replies_seq move from the pooled to the pooled-lo
+-- optimizer. The two read the same sequence value as different id blocks
+-- (pooled: the 50 ids ending at it, pooled-lo: the 50 starting at it), so old
+-- and new app instances running side by side hand out overlapping ids. Deploy
+-- this release stop-the-world: stop every old instance before starting a new one.
+
+-- A student can only be enrolled once per course. Drop duplicates from
+-- double-clicked joins first, keeping the oldest row.
+DELETE FROM enrollment e
+USING enrollment d
+WHERE e.account_id = d.account_id
+  AND e.course_id = d.course_id
+  AND e.id > d.id;
+
+ALTER TABLE enrollment
+    ADD CONSTRAINT uk_enrollment_account_course UNIQUE (account_id, course_id);
+
+-- Course feed, search and recent instructor posts: WHERE course_id = ? ORDER BY created_at DESC
+CREATE INDEX IF NOT EXISTS idx_post_course_created ON post (course_id, created_at);
+
+-- Posts by author (profile page)
+CREATE INDEX IF NOT EXISTS idx_post_account ON post (account_id);
+
+-- "Liked by me" lookups; (post_id, account_id) is already covered by the unique constraint
+CREATE INDEX IF NOT EXISTS idx_post_likes_account_post ON post_likes (account_id, post_id);
+
+-- Thread replies, pregenerated draft lookup and the instructor EXISTS subquery
+CREATE INDEX IF NOT EXISTS idx_replies_post ON replies (post_id);
+
+-- Instructor review queue: flagged AI replies, oldest first
+CREATE INDEX IF NOT EXISTS idx_replies_llm_flagged_created ON replies (llm_generated, flagged, created_at);
+
+-- Course resources, newest first, and the unindexed count
+CREATE INDEX IF NOT EXISTS idx_resource_course_uploaded ON resource (course_id, uploaded_at);
+
+-- Chunks of a resource in reading order
+CREATE INDEX IF NOT EXISTS idx_resource_text_chunk_resource ON resource_text_chunk (resource_id, chunk_index);
+
+-- Login and signup look accounts up by case-insensitive email
+CREATE INDEX IF NOT EXISTS idx_account_email_lower ON account (lower(email));
+
+-- Instructor lookups by role
+CREATE INDEX IF NOT EXISTS idx_account_authority_authority ON account_authority (authority_name);
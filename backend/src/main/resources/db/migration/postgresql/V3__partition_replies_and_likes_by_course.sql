@@ -0,0 +1,66 @@
+-- Replies and likes are the largest tables and are only ever read for one
+-- course at a time. They become LIST-partitioned by course_id (copied from
+-- the post). Every course starts in the DEFAULT partition; a course that
+-- grows large is moved to a partition of its own by CoursePartitionService.
+--
+-- post and resource stay unpartitioned: other tables reference their ids,
+-- and a foreign key to a partitioned table needs a unique key that includes
+-- the partition column.
+
+-- replies ---------------------------------------------------------------
+
+ALTER TABLE replies ADD COLUMN course_id bigint;
+UPDATE replies r SET course_id = p.course_id FROM post p WHERE p.id = r.post_id;
+ALTER TABLE replies RENAME TO replies_unpartitioned;
+
+CREATE TABLE replies (
+    LIKE replies_unpartitioned INCLUDING DEFAULTS,
+    CONSTRAINT pk_replies PRIMARY KEY (id, course_id)
+) PARTITION BY LIST (course_id);
+
+ALTER TABLE replies ALTER COLUMN course_id SET NOT NULL;
+
+CREATE TABLE replies_default PARTITION OF replies DEFAULT;
+
+INSERT INTO replies SELECT * FROM replies_unpartitioned;
+DROP TABLE replies_unpartitioned;
+
+ALTER TABLE replies
+    ADD CONSTRAINT fk_replies_course FOREIGN KEY (course_id) REFERENCES course (id),
+    ADD CONSTRAINT fk_replies_post FOREIGN KEY (post_id) REFERENCES post (id),
+    ADD CONSTRAINT fk_replies_author FOREIGN KEY (author_id) REFERENCES account (id),
+    ADD CONSTRAINT fk_replies_reviewed_by FOREIGN KEY (reviewed_by_id) REFERENCES account (id),
+    ADD CONSTRAINT fk_replies_flagged_by FOREIGN KEY (flagged_by_id) REFERENCES account (id),
+    ADD CONSTRAINT fk_replies_edited_by FOREIGN KEY (edited_by_id) REFERENCES account (id);
+
+-- Updates by id alone cannot be pruned, so each partition keeps an id lookup
+CREATE INDEX idx_replies_id ON replies (id);
+CREATE INDEX idx_replies_post ON replies (post_id);
+CREATE INDEX idx_replies_llm_flagged_created ON replies (llm_generated, flagged, created_at);
+
+-- post_likes ------------------------------------------------------------
+
+ALTER TABLE post_likes ADD COLUMN course_id bigint;
+UPDATE post_likes l SET course_id = p.course_id FROM post p WHERE p.id = l.post_id;
+ALTER TABLE post_likes RENAME TO post_likes_unpartitioned;
+
+-- A post belongs to one course, so uniqueness per (post, account) is unchanged
+CREATE TABLE post_likes (
+    LIKE post_likes_unpartitioned INCLUDING DEFAULTS,
+    CONSTRAINT pk_post_likes PRIMARY KEY (id, course_id),
+    CONSTRAINT uk_post_likes_post_account_course UNIQUE (post_id, account_id, course_id)
+) PARTITION BY LIST (course_id);
+
+ALTER TABLE post_likes ALTER COLUMN course_id SET NOT NULL;
+
+CREATE TABLE post_likes_default PARTITION OF post_likes DEFAULT;
+
+INSERT INTO post_likes SELECT * FROM post_likes_unpartitioned;
+DROP TABLE post_likes_unpartitioned;
+
+ALTER TABLE post_likes
+    ADD CONSTRAINT fk_post_likes_course FOREIGN KEY (course_id) REFERENCES course (id),
+    ADD CONSTRAINT fk_post_likes_post FOREIGN KEY (post_id) REFERENCES post (id),
+    ADD CONSTRAINT fk_post_likes_account FOREIGN KEY (account_id) REFERENCES account (id);
+
+CREATE INDEX idx_post_likes_account_post ON post_likes (account_id, post_id);
@@ -0,0 +1,2 @@
+-- Finished courses are moved to cold-storage snapshots; see CourseArchiveService
+ALTER TABLE course ADD COLUMN archived_at timestamp(6);
@@ -1,13 +1,93 @@
 package io.ATTTT.classGPT;
 
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.Filter;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
-@SpringBootTest
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Placeholder Gemini credentials so the context starts without real keys
+@SpringBootTest(properties = {
+		"spring.ai.google.genai.api-key=test",
+		"spring.ai.google.genai.project-id=test"
+})
 class ClassGptApplicationTests {
 
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private RequestMappingHandlerAdapter handlerAdapter;
+
+	@Autowired
+	@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	private AsyncTaskExecutor applicationTaskExecutor;
+
+	@Autowired
+	private WebApplicationContext webApplicationContext;
+
+	@Autowired
+	@Qualifier("springSecurityFilterChain")
+	private Filter springSecurityFilterChain;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void secondLevelCacheRegionsStart() {
+		SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		assertThat(sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()).isTrue();
+		assertThat(sessionFactory.getCache().getRegion("account")).isNotNull();
+		assertThat(sessionFactory.getCache().getRegion("course")).isNotNull();
+		assertThat(sessionFactory.getCache().getRegion("authority")).isNotNull();
+	}
+
+	@Test
+	void mvcAsyncUsesTheApplicationTaskExecutor() {
+		assertThat(ReflectionTestUtils.getField(handlerAdapter, "taskExecutor"))
+				.isSameAs(applicationTaskExecutor);
+		assertThat(applicationTaskExecutor).isInstanceOfSatisfying(SimpleAsyncTaskExecutor.class,
+				executor -> assertThat(executor.isThrottleActive()).isTrue());
+	}
+
+	@Test
+	void actuatorIsAdminOnlyExceptHealth() throws Exception {
+		MockMvc mvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+				.addFilters(springSecurityFilterChain)
+				.build();
+
+		mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+		mvc.perform(get("/actuator/metrics").session(loggedIn("ROLE_USER"))).andExpect(status().isForbidden());
+		mvc.perform(get("/actuator/metrics").session(loggedIn("ROLE_ADMIN"))).andExpect(status().isOk());
+	}
+
+	private static MockHttpSession loggedIn(String role) {
+		var authentication = UsernamePasswordAuthenticationToken.authenticated(
+				"user@example.com", null, AuthorityUtils.createAuthorityList(role));
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+				new SecurityContextImpl(authentication));
+		return session;
+	}
+
 }
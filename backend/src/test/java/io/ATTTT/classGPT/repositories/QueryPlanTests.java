@@ -0,0 +1,161 @@
+package io.ATTTT.classGPT.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls the hot repository methods against the Flyway-built H2 schema,
+ * captures the SQL Hibernate generates for them, and fails if EXPLAIN shows
+ * any of it scanning a whole table. The lower(email) index only exists on
+ * PostgreSQL and is not covered here.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "io.ATTTT.classGPT.repositories.QueryPlanTests$RecordingInspector",
+        // A cached result would skip the SQL we want to see
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class QueryPlanTests {
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    private interface RepositoryCall {
+        void run(QueryPlanTests repos);
+    }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private EnrollmentRepository enrollmentRepository;
+    @Autowired private PostRepository postRepository;
+    @Autowired private PostLikesRepository postLikesRepository;
+    @Autowired private RepliesRepository repliesRepository;
+    @Autowired private ResourceRepository resourceRepository;
+    @Autowired private ResourceBlobRepository resourceBlobRepository;
+    @Autowired private ResourceTextChunkRepository resourceTextChunkRepository;
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                call("PostRepository.findByCourseIdOrderByCreatedAtDesc",
+                        r -> r.postRepository.findByCourseIdOrderByCreatedAtDesc(1L)),
+                call("PostRepository.findByAccount_Id",
+                        r -> r.postRepository.findByAccount_Id(1L)),
+                call("PostRepository.searchSimilar",
+                        r -> r.postRepository.searchSimilar(1L, "exam")),
+                call("PostRepository.findRecentInstructorPosts",
+                        r -> r.postRepository.findRecentInstructorPosts(1L, PageRequest.of(0, 20))),
+                call("PostRepository.streamByCourseId",
+                        r -> {
+                            try (var posts = r.postRepository.streamByCourseId(1L)) {
+                                posts.forEach(p -> { });
+                            }
+                        }),
+                call("PostLikesRepository.existsByPostIdAndAccountId",
+                        r -> r.postLikesRepository.existsByPostIdAndAccountId(1L, 1L)),
+                call("PostLikesRepository.findByPostIdAndAccountId",
+                        r -> r.postLikesRepository.findByPostIdAndAccountId(1L, 1L)),
+                call("PostLikesRepository.countByPostId",
+                        r -> r.postLikesRepository.countByPostId(1L)),
+                call("EnrollmentRepository.existsByAccountIdAndCourseId",
+                        r -> r.enrollmentRepository.existsByAccountIdAndCourseId(1L, 1L)),
+                call("EnrollmentRepository.findByAccountId",
+                        r -> r.enrollmentRepository.findByAccountId(1L)),
+                call("EnrollmentRepository.findByAccountIdAndCourseId",
+                        r -> r.enrollmentRepository.findByAccountIdAndCourseId(1L, 1L)),
+                call("EnrollmentRepository.findEnrolledAccountIds",
+                        r -> r.enrollmentRepository.findEnrolledAccountIds(1L, List.of(1L, 2L))),
+                call("RepliesRepository.findByPost",
+                        r -> r.repliesRepository.findByPost(r.postRepository.getReferenceById(1L))),
+                call("RepliesRepository.findPregeneratedByPostId",
+                        r -> r.repliesRepository.findPregeneratedByPostId(1L, Limit.of(1))),
+                call("RepliesRepository.findReplyStampByPostId",
+                        r -> r.repliesRepository.findReplyStampByPostId(1L)),
+                call("RepliesRepository.existsLlmReplyByPostId",
+                        r -> r.repliesRepository.existsLlmReplyByPostId(1L)),
+                call("RepliesRepository.streamPublishedByCourseIdInThreadOrder",
+                        r -> {
+                            try (var replies = r.repliesRepository.streamPublishedByCourseIdInThreadOrder(1L)) {
+                                replies.forEach(reply -> { });
+                            }
+                        }),
+                call("RepliesRepository.findByLlmGeneratedTrueAndFlaggedTrueOrderByCreatedAtAsc",
+                        r -> r.repliesRepository.findByLlmGeneratedTrueAndFlaggedTrueOrderByCreatedAtAsc()),
+                call("ResourceRepository.findByCourseIdOrderByUploadedAtDesc",
+                        r -> r.resourceRepository.findByCourseIdOrderByUploadedAtDesc(1L)),
+                call("ResourceRepository.countUnindexedByCourseId",
+                        r -> r.resourceRepository.countUnindexedByCourseId(1L)),
+                call("ResourceBlobRepository.findDataByResourceId",
+                        r -> r.resourceBlobRepository.findDataByResourceId(1L)),
+                call("ResourceTextChunkRepository.streamByCourseIdInReadingOrder",
+                        r -> {
+                            try (var chunks = r.resourceTextChunkRepository.streamByCourseIdInReadingOrder(1L)) {
+                                chunks.forEach(c -> { });
+                            }
+                        }),
+                call("CourseRepository.findByJoinCode",
+                        r -> r.courseRepository.findByJoinCode("ABC123")),
+                call("CourseRepository.existsByJoinCode",
+                        r -> r.courseRepository.existsByJoinCode("ABC123")),
+                call("CourseRepository.lockIfNotArchived",
+                        r -> r.courseRepository.lockIfNotArchived(1L)),
+                call("AccountRepository.findByAuthorities_Name",
+                        r -> r.accountRepository.findByAuthorities_Name("ROLE_ADMIN"))
+        );
+    }
+
+    private static Arguments call(String method, RepositoryCall call) {
+        return Arguments.of(method, call);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void usesAnIndex(String method, RepositoryCall call) {
+        RecordingInspector.statements.clear();
+        call.run(this);
+        List<String> queries = RecordingInspector.statements.stream()
+                .filter(sql -> sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select"))
+                .toList();
+
+        assertThat(queries).as("SQL issued by %s", method).isNotEmpty();
+        for (String sql : queries) {
+            assertThat(explain(sql))
+                    .as("plan for %s: %s", method, sql)
+                    .doesNotContain("tableScan");
+        }
+    }
+
+    // Every parameter is bound to 1; H2 converts it to the column's type
+    private String explain(String sql) {
+        long parameters = sql.chars().filter(c -> c == '?').count();
+        return jdbcTemplate.query("EXPLAIN " + sql,
+                ps -> {
+                    for (int i = 1; i <= parameters; i++) {
+                        ps.setObject(i, 1);
+                    }
+                },
+                rs -> rs.next() ? rs.getString(1) : "");
+    }
+}
@@ -0,0 +1,117 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.dto.RosterImportResult;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Course;
+import io.ATTTT.classGPT.models.Enrollment;
+import io.ATTTT.classGPT.repositories.AccountRepository;
+import io.ATTTT.classGPT.repositories.CourseRepository;
+import io.ATTTT.classGPT.repositories.EnrollmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EnrollmentServiceTests {
+
+    private final CourseRepository courses = mock(CourseRepository.class);
+    private final EnrollmentRepository enrollments = mock(EnrollmentRepository.class);
+    private final AccountRepository accounts = mock(AccountRepository.class);
+    private final EnrollmentCache cache = new EnrollmentCache();
+    private final Course course = new Course();
+    private EnrollmentService service;
+
+    @BeforeEach
+    void setUp() {
+        course.setId(3L);
+        when(courses.findById(3L)).thenReturn(Optional.of(course));
+        service = new EnrollmentService(courses, enrollments, accounts, cache, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void readsTheFirstEmailOfEachLine() throws IOException {
+        String csv = """
+                email,name,student id
+                "Ada@Example.com","Lovelace, Ada",1
+                Lovelace,ada@example.com,2
+                "Doe, Jane", jane@example.com ,3
+                no email here
+                """;
+
+        assertThat(EnrollmentService.readRosterEmails(new StringReader(csv)))
+                .containsExactly("ada@example.com", "jane@example.com");
+    }
+
+    @Test
+    void readsAnEmptyRoster() throws IOException {
+        assertThat(EnrollmentService.readRosterEmails(new StringReader(""))).isEmpty();
+    }
+
+    @Test
+    void importEnrollsNewAccountsAndReportsTheRest() throws IOException {
+        Account ada = account(10L, "Ada@example.com");
+        Account bob = account(11L, "bob@example.com");
+        when(accounts.findByLowerEmailIn(anyCollection())).thenReturn(List.of(ada, bob));
+        when(enrollments.findEnrolledAccountIds(eq(3L), anyCollection())).thenReturn(List.of(11L));
+
+        RosterImportResult result = service.importRoster(3L, new StringReader("""
+                email
+                ada@example.com
+                ADA@example.com
+                bob@example.com
+                carol@example.com
+                """));
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.existing()).isEqualTo(1);
+        assertThat(result.unknown()).containsExactly("carol@example.com");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Enrollment>> saved = ArgumentCaptor.forClass(List.class);
+        verify(enrollments).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(e -> e.getAccount().getId()).containsExactly(10L);
+    }
+
+    @Test
+    void importWarmsTheCacheForNewAndExistingMembers() throws IOException {
+        when(accounts.findByLowerEmailIn(anyCollection()))
+                .thenReturn(List.of(account(10L, "ada@example.com"), account(11L, "bob@example.com")));
+        when(enrollments.findEnrolledAccountIds(eq(3L), anyCollection())).thenReturn(List.of(11L));
+
+        service.importRoster(3L, new StringReader("ada@example.com\nbob@example.com\n"));
+
+        assertThat(service.isEnrolled(10L, 3L)).isTrue();
+        assertThat(service.isEnrolled(11L, 3L)).isTrue();
+        verify(enrollments, never()).existsByAccountIdAndCourseId(anyLong(), anyLong());
+    }
+
+    @Test
+    void evictingACourseFallsBackToTheDatabase() {
+        cache.record(10L, 3L);
+        cache.evictCourse(3L);
+
+        assertThat(service.isEnrolled(10L, 3L)).isFalse();
+        verify(enrollments).existsByAccountIdAndCourseId(10L, 3L);
+    }
+
+    private static Account account(Long id, String email) {
+        Account account = new Account();
+        account.setId(id);
+        account.setEmail(email);
+        return account;
+    }
+}
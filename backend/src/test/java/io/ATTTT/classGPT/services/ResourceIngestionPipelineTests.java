@@ -0,0 +1,82 @@
+package io.ATTTT.classGPT.services;
+
+import io.ATTTT.classGPT.dto.BulkUploadResult;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Course;
+import io.ATTTT.classGPT.models.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class ResourceIngestionPipelineTests {
+
+    private final ResourceService resources = mock(ResourceService.class);
+    private final Account uploader = new Account();
+    private final Course course = new Course();
+    private ResourceIngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        uploader.setId(1L);
+        course.setId(2L);
+        when(resources.prepare(any(), eq("notes.txt"), any(), any()))
+                .thenReturn(new ResourceService.PreparedUpload("notes.txt", "notes.txt", "text/plain",
+                        new byte[0], List.of()));
+        pipeline = new ResourceIngestionPipeline(resources, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void storesAFile() {
+        Resource saved = new Resource();
+        saved.setId(5L);
+        when(resources.persistAll(eq(uploader), eq(course), anyList())).thenReturn(List.of(saved));
+
+        List<BulkUploadResult> results = pipeline.ingest(uploader, course, List.of(file()));
+
+        assertThat(results).containsExactly(BulkUploadResult.indexing("notes.txt", 5L));
+    }
+
+    @Test
+    void anErrorInThePersistStageFailsTheBatchAndKeepsTheStageRunning() {
+        Resource saved = new Resource();
+        saved.setId(5L);
+        when(resources.persistAll(eq(uploader), eq(course), anyList()))
+                .thenThrow(new NoClassDefFoundError("boom"))
+                .thenReturn(List.of(saved));
+
+        assertThat(pipeline.ingest(uploader, course, List.of(file())))
+                .extracting(BulkUploadResult::status)
+                .containsExactly(BulkUploadResult.Status.FAILED);
+        assertThat(pipeline.ingest(uploader, course, List.of(file())))
+                .containsExactly(BulkUploadResult.indexing("notes.txt", 5L));
+    }
+
+    @Test
+    void failsUploadsAfterShutdownInsteadOfWaiting() {
+        pipeline.shutdown();
+
+        assertThat(pipeline.ingest(uploader, course, List.of(file())))
+                .containsExactly(BulkUploadResult.failed("notes.txt", "Ingestion is shutting down"));
+    }
+
+    private static MockMultipartFile file() {
+        return new MockMultipartFile("files", "notes.txt", "text/plain", "hello".getBytes());
+    }
+}
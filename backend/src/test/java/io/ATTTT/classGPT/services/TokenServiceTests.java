@@ -0,0 +1,134 @@
+package io.ATTTT.classGPT.services;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.ATTTT.classGPT.dto.TokenResponse;
+import io.ATTTT.classGPT.models.Account;
+import io.ATTTT.classGPT.models.Authority;
+import io.ATTTT.classGPT.repositories.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenServiceTests {
+
+    private final SecretKey key = key((byte) 1);
+    private final AccountRepository accounts = mock(AccountRepository.class);
+    private final Account account = new Account();
+
+    @BeforeEach
+    void setUp() {
+        account.setId(7L);
+        account.setEmail("student@example.com");
+        account.getAuthorities().add(authority("ROLE_USER"));
+        when(accounts.findById(7L)).thenReturn(Optional.of(account));
+    }
+
+    @Test
+    void issuesAnAccessTokenCarryingIdAndRoles() {
+        TokenResponse tokens = service(key, Duration.ofDays(14)).issue(account);
+
+        assertThat(tokens.tokenType()).isEqualTo("Bearer");
+        assertThat(tokens.expiresIn()).isEqualTo(Duration.ofMinutes(15).toSeconds());
+
+        Jwt access = TokenService.accessDecoder(key).decode(tokens.accessToken());
+        assertThat(access.getSubject()).isEqualTo("student@example.com");
+        assertThat(access.<Number>getClaim(TokenService.ACCOUNT_ID_CLAIM).longValue()).isEqualTo(7L);
+        assertThat(access.getClaimAsStringList(TokenService.ROLES_CLAIM)).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void refreshReissuesWithCurrentRoles() {
+        TokenService service = service(key, Duration.ofDays(14));
+        TokenResponse first = service.issue(account);
+
+        account.getAuthorities().add(authority("ROLE_ADMIN"));
+        TokenResponse refreshed = service.refresh(first.refreshToken());
+
+        Jwt access = TokenService.accessDecoder(key).decode(refreshed.accessToken());
+        assertThat(access.getClaimAsStringList(TokenService.ROLES_CLAIM))
+                .isEqualTo(List.of("ROLE_ADMIN", "ROLE_USER"));
+    }
+
+    @Test
+    void refreshRejectsAnAccessToken() {
+        TokenService service = service(key, Duration.ofDays(14));
+        String accessToken = service.issue(account).accessToken();
+
+        assertThatThrownBy(() -> service.refresh(accessToken))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void accessDecoderRejectsARefreshToken() {
+        String refreshToken = service(key, Duration.ofDays(14)).issue(account).refreshToken();
+        JwtDecoder decoder = TokenService.accessDecoder(key);
+
+        assertThatThrownBy(() -> decoder.decode(refreshToken))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void refreshRejectsAnExpiredToken() {
+        // Past the validator's default 60s clock skew
+        Instant issued = Instant.now().minus(Duration.ofMinutes(10));
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(TokenService.ISSUER)
+                .subject(account.getEmail())
+                .issuedAt(issued)
+                .expiresAt(issued.plus(Duration.ofMinutes(5)))
+                .claim(TokenService.TYPE_CLAIM, TokenService.REFRESH)
+                .claim(TokenService.ACCOUNT_ID_CLAIM, account.getId())
+                .build();
+        String expired = new NimbusJwtEncoder(new ImmutableSecret<>(key))
+                .encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+                .getTokenValue();
+
+        assertThatThrownBy(() -> service(key, Duration.ofDays(14)).refresh(expired))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void refreshRejectsATokenSignedWithAnotherKey() {
+        String forged = service(key((byte) 2), Duration.ofDays(14)).issue(account).refreshToken();
+
+        assertThatThrownBy(() -> service(key, Duration.ofDays(14)).refresh(forged))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private TokenService service(SecretKey signingKey, Duration refreshTtl) {
+        return new TokenService(new NimbusJwtEncoder(new ImmutableSecret<>(signingKey)),
+                signingKey, accounts, Duration.ofMinutes(15), refreshTtl);
+    }
+
+    private static SecretKey key(byte fill) {
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, fill);
+        return new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+}
@@ -0,0 +1,102 @@
+package io.ATTTT.classGPT.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTests {
+
+    private static final Duration OPEN_FOR = Duration.ofMillis(100);
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test",
+            new CircuitBreaker.Settings(4, 2, 0.5, OPEN_FOR, 2),
+            e -> !(e instanceof IllegalArgumentException),
+            new SimpleMeterRegistry());
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        fail();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtFailureThresholdAndRejectsWithoutCalling() {
+        succeed();
+        fail();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.remainingOpenTime()).isPositive();
+
+        AtomicBoolean called = new AtomicBoolean();
+        assertThatThrownBy(() -> breaker.execute(() -> called.getAndSet(true)))
+                .isInstanceOf(CircuitBreaker.OpenException.class);
+        assertThat(called).isFalse();
+    }
+
+    @Test
+    void callerErrorsDoNotOpenTheCircuit() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.execute(() -> {
+                throw new IllegalArgumentException("bad request");
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.failureRate()).isZero();
+    }
+
+    @Test
+    void halfOpenClosesOnceEveryProbeSucceeds() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_FOR.toMillis() + 50);
+        assertThat(breaker.remainingOpenTime()).isZero();
+
+        succeed();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        succeed();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.failureRate()).isZero();
+    }
+
+    @Test
+    void halfOpenReopensOnAFailedProbe() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_FOR.toMillis() + 50);
+
+        fail();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenRejectsCallsBeyondTheProbeLimit() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_FOR.toMillis() + 50);
+
+        // Nested calls are probes still in flight when the next one arrives
+        breaker.execute(() -> breaker.execute(() -> {
+            assertThatThrownBy(() -> breaker.execute(() -> "third"))
+                    .isInstanceOf(CircuitBreaker.OpenException.class);
+            return "second";
+        }));
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void open() {
+        fail();
+        fail();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void succeed() {
+        breaker.execute(() -> "ok");
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> breaker.execute(() -> {
+            throw new IllegalStateException("service down");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+}
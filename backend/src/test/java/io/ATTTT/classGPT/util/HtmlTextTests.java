@@ -0,0 +1,63 @@
+package io.ATTTT.classGPT.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlTextTests {
+
+    @Test
+    void decodesNamedAndNumericEntities() {
+        assertThat(HtmlText.toPlainText("a &amp; b &lt;c&gt; &quot;q&quot;")).isEqualTo("a & b <c> \"q\"");
+        assertThat(HtmlText.toPlainText("&#65;&#x42;&#X43;")).isEqualTo("ABC");
+        assertThat(HtmlText.toPlainText("x&nbsp;y")).isEqualTo("x y");
+    }
+
+    @Test
+    void keepsUnknownEntitiesAndBareAmpersands() {
+        assertThat(HtmlText.toPlainText("&bogus; & AT&T")).isEqualTo("&bogus; & AT&T");
+    }
+
+    @Test
+    void keepsNulAndSurrogateReferencesAsText() {
+        assertThat(HtmlText.toPlainText("a&#0;b")).isEqualTo("a&#0;b");
+        assertThat(HtmlText.toPlainText("&#xD800;&#xdfff;&#55296;")).isEqualTo("&#xD800;&#xdfff;&#55296;");
+        assertThat(HtmlText.toPlainText("&#x1F600;")).isEqualTo("\uD83D\uDE00");
+    }
+
+    @Test
+    void dropsInlineTagsAndBreaksOnBlockTags() {
+        assertThat(HtmlText.toPlainText("<p>Hello <b>world</b></p><p>Next</p>")).isEqualTo("Hello world\n\nNext");
+        assertThat(HtmlText.toPlainText("line one<br>line two")).isEqualTo("line one\nline two");
+        assertThat(HtmlText.toPlainText("<a href=\"x>y\">link</a>")).isEqualTo("link");
+    }
+
+    @Test
+    void keepsListItemsOnConsecutiveLines() {
+        assertThat(HtmlText.toPlainText("<ul><li>one</li><li>two</li></ul>")).isEqualTo("one\ntwo");
+    }
+
+    @Test
+    void skipsScriptStyleAndComments() {
+        assertThat(HtmlText.toPlainText("<script>alert(1)</script>Hi<style>p{}</style>!")).isEqualTo("Hi!");
+        assertThat(HtmlText.toPlainText("a<!-- note -->b")).isEqualTo("ab");
+    }
+
+    @Test
+    void leavesComparisonsThatAreNotTags() {
+        assertThat(HtmlText.toPlainText("a < b and c > d")).isEqualTo("a < b and c > d");
+    }
+
+    @Test
+    void collapsesWhitespace() {
+        assertThat(HtmlText.toPlainText("  a \t  b  ")).isEqualTo("a b");
+        assertThat(HtmlText.toPlainText("<div>  spaced   out  </div>")).isEqualTo("spaced out");
+        assertThat(HtmlText.toPlainText("a\n\n\n\nb")).isEqualTo("a\n\nb");
+    }
+
+    @Test
+    void nullAndEmptyBecomeEmpty() {
+        assertThat(HtmlText.toPlainText(null)).isEmpty();
+        assertThat(HtmlText.toPlainText("")).isEmpty();
+    }
+}
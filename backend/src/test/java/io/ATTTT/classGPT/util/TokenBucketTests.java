@@ -0,0 +1,46 @@
+package io.ATTTT.classGPT.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+    @Test
+    void startsFullAndRejectsOnceDrained() {
+        TokenBucket bucket = new TokenBucket(3, Duration.ofHours(1));
+
+        assertThat(acquire(bucket, 3)).isEqualTo(3);
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refillsEvenlyOverThePeriod() throws InterruptedException {
+        // One token every 200ms
+        TokenBucket bucket = new TokenBucket(2, Duration.ofMillis(400));
+        acquire(bucket, 2);
+
+        Thread.sleep(250);
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refillNeverExceedsCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofMillis(50));
+        acquire(bucket, 2);
+
+        Thread.sleep(300);
+        assertThat(acquire(bucket, 5)).isEqualTo(2);
+    }
+
+    private static int acquire(TokenBucket bucket, int attempts) {
+        int granted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (bucket.tryAcquire()) granted++;
+        }
+        return granted;
+    }
+}